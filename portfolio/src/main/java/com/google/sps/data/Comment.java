@@ -31,4 +31,8 @@ public final class Comment {
     this.timestamp = timestamp;
     this.sentiment = sentiment;
   }
+
+  public long getId() {
+    return id;
+  }
 }
@@ -0,0 +1,44 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.data;
+
+import java.util.List;
+
+public final class CommentPage {
+
+  private final List<Comment> comments;
+  // Opaque cursor that fetches the page after this one, or null if there are no more comments.
+  private final String next;
+  // The cursor after each comment, or null where it isn't known. Not sent to the browser.
+  private final transient List<String> cursors;
+
+  public CommentPage(List<Comment> comments, List<String> cursors, String next) {
+    this.comments = comments;
+    this.cursors = cursors;
+    this.next = next;
+  }
+
+  public List<Comment> getComments() {
+    return comments;
+  }
+
+  public List<String> getCursors() {
+    return cursors;
+  }
+
+  public String getNext() {
+    return next;
+  }
+}
@@ -14,35 +14,43 @@
 
 package com.google.sps.servlets;
 
+import com.google.appengine.api.datastore.Cursor;
 import com.google.appengine.api.datastore.DatastoreService;
 import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.EntityNotFoundException;
 import com.google.appengine.api.datastore.FetchOptions;
-import com.google.appengine.api.datastore.PreparedQuery;
+import com.google.appengine.api.datastore.KeyFactory;
 import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.QueryResultIterator;
 import com.google.appengine.api.datastore.Query.SortDirection;
 import com.google.appengine.api.users.UserService;
 import com.google.appengine.api.users.UserServiceFactory;
-import com.google.cloud.language.v1.Document;
-import com.google.cloud.language.v1.LanguageServiceClient;
-import com.google.cloud.language.v1.Sentiment;
 import com.google.gson.Gson;
 import com.google.sps.data.Comment;
+import com.google.sps.data.CommentPage;
+import com.google.sps.utils.CommentCache;
 import com.google.sps.utils.Constants;
+import com.google.sps.utils.NicknameCache;
+import com.google.sps.utils.SentimentScorer;
 import java.io.IOException;
-import java.text.DecimalFormat;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 /* Servlet that: 
- * in Get request returns N comments from Datastore where N is a parameter called limit; 
- * in Post request adds a comment entity into the Datastore
+ * in Get request returns a page of N comments where N is a parameter called limit, and the
+ *          cursor of the next page; the page starts at the cursor parameter if there is one,
+ *          otherwise it is the first page and is served from CommentCache when it can be; 
+ * in Post request adds a comment entity, with a copy of its author's nickname, into the Datastore
+ *          and queues scoring of its sentiment with SentimentScorer
  *          and if the user's nickname and input name are different
  *          updates the user info entity in the Datastore    
  */
@@ -52,19 +60,23 @@ public class DataServlet extends HttpServlet {
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
     DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-
-    Query commentQuery = new Query(Constants.ENTITY_COMMENT).addSort(Constants.PROPERTY_TIMESTAMP, SortDirection.DESCENDING);
     int limit = Integer.parseInt(request.getParameter(Constants.PARAMETER_LIMIT));
-    List<Entity> commentResults = datastore.prepare(commentQuery).asList(FetchOptions.Builder.withLimit(limit));
-    List<Comment> comments = new ArrayList<>();
-    if (!commentResults.isEmpty()) {
-      Map<String, String> userNicknames = getUserNicknames(datastore);
-      for (Entity entity : commentResults) {
-        comments.add(getCommentFromEntity(entity, userNicknames));
+    String cursor = request.getParameter(Constants.PARAMETER_CURSOR);
+    String json;
+    if (cursor == null || cursor.isEmpty()) {
+      json = CommentCache.getInstance().getJson(limit, n -> getCommentPage(datastore, n, null));
+    } else {
+      Cursor startCursor;
+      try {
+        startCursor = Cursor.fromWebSafeString(cursor);
+      } catch (IllegalArgumentException e) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid cursor");
+        return;
       }
+      json = new Gson().toJson(getCommentPage(datastore, limit, startCursor));
     }
     response.setContentType("application/json;");
-    response.getWriter().println(new Gson().toJson(comments));
+    response.getWriter().println(json);
   }
 
   @Override
@@ -77,43 +89,72 @@ public class DataServlet extends HttpServlet {
       return;
     }
 
-    Entity commentEntity = createCommentEntity(userService, request);
     DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    Entity commentEntity = createCommentEntity(datastore, userService, request);
     datastore.put(commentEntity);
+    SentimentScorer.schedule(commentEntity.getKey().getId());
+    CommentCache.getInstance().commentAdded(getCommentFromEntity(commentEntity, Collections.emptyMap()));
     response.sendRedirect("/index.html#comments");
   }
 
-  /* Given a message returns its sentiment score rounded to 3 decimal places */
-  private String getSentimentAnalysis(String message) throws IOException {
-    Document doc =
-        Document.newBuilder().setContent(message).setType(Document.Type.PLAIN_TEXT).build();
-    LanguageServiceClient languageService = LanguageServiceClient.create();
-    Sentiment sentiment = languageService.analyzeSentiment(doc).getDocumentSentiment();
-    if (sentiment == null) {
-        return "No sentiment found";
+  /* Returns up to limit comments, newest first, starting at startCursor or at the latest comment
+   * if startCursor is null. The page has a next cursor only if it is full. */
+  private CommentPage getCommentPage(DatastoreService datastore, int limit, Cursor startCursor) {
+    Query commentQuery = new Query(Constants.ENTITY_COMMENT).addSort(Constants.PROPERTY_TIMESTAMP, SortDirection.DESCENDING);
+    FetchOptions fetchOptions = FetchOptions.Builder.withLimit(Math.max(limit, 0));
+    if (startCursor != null) {
+      fetchOptions.startCursor(startCursor);
+    }
+    QueryResultIterator<Entity> results = datastore.prepare(commentQuery).asQueryResultIterator(fetchOptions);
+    List<Entity> commentResults = new ArrayList<>();
+    // The cursor after each comment lets CommentCache end its first page after any of them.
+    List<String> cursors = new ArrayList<>();
+    while (results.hasNext()) {
+      commentResults.add(results.next());
+      cursors.add(results.getCursor().toWebSafeString());
     }
-    String score = new DecimalFormat("#.###").format(sentiment.getScore());
-    languageService.close();
-    return score;
+
+    List<Comment> comments = new ArrayList<>();
+    if (!commentResults.isEmpty()) {
+      Map<String, String> userNicknames = getUserNicknames(datastore, commentResults);
+      for (Entity entity : commentResults) {
+        comments.add(getCommentFromEntity(entity, userNicknames));
+      }
+    }
+    String next = limit > 0 && comments.size() == limit ? cursors.get(cursors.size() - 1) : null;
+    return new CommentPage(comments, cursors, next);
+  }
+
+  /* Returns a Map of <userId, nickname> for the authors of commentEntities that were stored
+   * before comments kept their author's nickname */
+  private Map<String, String> getUserNicknames(DatastoreService datastore, List<Entity> commentEntities) {
+    Set<String> userIds = new HashSet<>();
+    for (Entity entity : commentEntities) {
+      if (!entity.hasProperty(Constants.PROPERTY_NAME)) {
+        userIds.add((String) entity.getProperty(Constants.PROPERTY_USER_ID));
+      }
+    }
+    if (userIds.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    return NicknameCache.getInstance().getNicknames(datastore, userIds);
   }
 
-  /* Returns a Map of <userId, nickname> */
-  private Map<String, String> getUserNicknames(DatastoreService datastore) {
-    Query userInfoQuery = new Query(Constants.ENTITY_USER_INFO);
-    PreparedQuery userInfoResults = datastore.prepare(userInfoQuery);
-    Map<String, String> userNicknames = new HashMap<>();
-    for (Entity entity : userInfoResults.asIterable()) {
-      String userId = (String) entity.getProperty(Constants.PROPERTY_USER_ID);
-      String nickname = (String) entity.getProperty(Constants.PROPERTY_NICKNAME);
-      userNicknames.put(userId, nickname);
-    }      
-    return userNicknames;
+  /* Returns the nickname of the user with userId, or null if the user has not set a nickname */
+  private String getUserNickname(DatastoreService datastore, String userId) {
+    try {
+      Entity entity = datastore.get(KeyFactory.createKey(Constants.ENTITY_USER_INFO, userId));
+      return (String) entity.getProperty(Constants.PROPERTY_NICKNAME);
+    } catch (EntityNotFoundException e) {
+      return null;
+    }
   }
 
   private Comment getCommentFromEntity(Entity entity, Map<String, String> userNicknames) {
     long id = entity.getKey().getId();
     String userId = (String) entity.getProperty(Constants.PROPERTY_USER_ID);
-    String name = userNicknames.get(userId);
+    String name = entity.hasProperty(Constants.PROPERTY_NAME)
+        ? (String) entity.getProperty(Constants.PROPERTY_NAME) : userNicknames.get(userId);
     String commentText = (String) entity.getProperty(Constants.PROPERTY_COMMENT);
     long timestamp = (long) entity.getProperty(Constants.PROPERTY_TIMESTAMP);
     String sentiment = (String) entity.getProperty(Constants.PROPERTY_SENTIMENT);
@@ -121,17 +162,20 @@ public class DataServlet extends HttpServlet {
     return new Comment(id, userId, name, commentText, timestamp, sentiment);
   }
 
-  private Entity createCommentEntity(UserService userService, HttpServletRequest request) throws IOException{
+  private Entity createCommentEntity(DatastoreService datastore, UserService userService, HttpServletRequest request) {
     long timestamp = System.currentTimeMillis();
     String userId = userService.getCurrentUser().getUserId();
     String commentText = request.getParameter(Constants.PROPERTY_COMMENT);
-    String sentimentScore = getSentimentAnalysis(commentText);
 
     Entity commentEntity = new Entity(Constants.ENTITY_COMMENT);
     commentEntity.setProperty(Constants.PROPERTY_USER_ID, userId);
+    // Read the nickname from Datastore rather than NicknameCache, which may be behind a rename
+    // made on another instance.
+    commentEntity.setProperty(Constants.PROPERTY_NAME, getUserNickname(datastore, userId));
     commentEntity.setProperty(Constants.PROPERTY_COMMENT, commentText);
     commentEntity.setProperty(Constants.PROPERTY_TIMESTAMP, timestamp);
-    commentEntity.setProperty(Constants.PROPERTY_SENTIMENT, sentimentScore);
+    // The sentiment is scored in the background; until then the comment has none.
+    SentimentScorer.markPending(commentEntity);
 
     return commentEntity;
   }
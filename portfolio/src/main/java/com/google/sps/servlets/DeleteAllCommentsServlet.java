@@ -22,6 +22,7 @@ import com.google.appengine.api.datastore.Query;
 import com.google.appengine.api.users.UserService;
 import com.google.appengine.api.users.UserServiceFactory;
 import com.google.gson.Gson;
+import com.google.sps.utils.CommentCache;
 import com.google.sps.utils.Constants;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -59,6 +60,7 @@ public class DeleteAllCommentsServlet extends HttpServlet {
     for (Entity entity : results.asIterable()) {
       datastore.delete(entity.getKey());
     }
+    CommentCache.getInstance().allCommentsDeleted();
     response.getWriter().println(gson.toJson(true));
   }
 }
@@ -24,6 +24,7 @@ import com.google.appengine.api.datastore.Query;
 import com.google.appengine.api.users.UserService;
 import com.google.appengine.api.users.UserServiceFactory;
 import com.google.gson.Gson;
+import com.google.sps.utils.CommentCache;
 import com.google.sps.utils.Constants;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -59,6 +60,7 @@ public class DeleteCommentServlet extends HttpServlet {
       if (userService.getCurrentUser().getUserId().equals((String) entity.getProperty(Constants.PROPERTY_USER_ID))
           || userService.isUserAdmin()) {
         datastore.delete(entity.getKey());
+        CommentCache.getInstance().commentDeleted(key.getId());
         response.getWriter().println(gson.toJson(true));
         response.sendRedirect("/index.html#comments");
       }
@@ -0,0 +1,45 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.sps.utils.Constants;
+import com.google.sps.utils.SentimentScorer;
+import java.io.IOException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/* Task queue handler that in the Post request scores the sentiment of a batch of pending comments,
+ * see SentimentScorer. Only the task queue may call it. */
+@WebServlet(SentimentScorer.TASK_URL)
+public class ScoreSentimentServlet extends HttpServlet {
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    // App Engine removes this header from requests that don't come from a task queue.
+    if (request.getHeader("X-AppEngine-QueueName") == null) {
+      response.sendError(HttpServletResponse.SC_FORBIDDEN);
+      return;
+    }
+
+    String commentId = request.getParameter(Constants.PARAMETER_COMMENT_ID);
+
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    SentimentScorer.runBatch(datastore, commentId == null ? null : Long.parseLong(commentId));
+  }
+}
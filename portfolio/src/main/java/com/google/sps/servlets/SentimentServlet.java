@@ -0,0 +1,66 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.gson.Gson;
+import com.google.sps.utils.Constants;
+import com.google.sps.utils.SentimentScorer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/* Servlet that in the Get request returns a Map of <commentId, sentiment> for the comments with
+ * the commentId parameters whose sentiment has been scored. Pending and deleted comments are left
+ * out, so the page can ask again for the ones it is still waiting for. */
+@WebServlet("/sentiment")
+public class SentimentServlet extends HttpServlet {
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    String[] commentIds = request.getParameterValues(Constants.PARAMETER_COMMENT_ID);
+    List<Key> keys = new ArrayList<>();
+    if (commentIds != null) {
+      try {
+        for (String commentId : commentIds) {
+          keys.add(KeyFactory.createKey(Constants.ENTITY_COMMENT, Long.parseLong(commentId)));
+        }
+      } catch (NumberFormatException e) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid comment id");
+        return;
+      }
+    }
+
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    Map<Long, String> sentiments = new HashMap<>();
+    for (Entity entity : datastore.get(keys).values()) {
+      if (!SentimentScorer.isPending(entity)) {
+        sentiments.put(entity.getKey().getId(), (String) entity.getProperty(Constants.PROPERTY_SENTIMENT));
+      }
+    }
+    response.setContentType("application/json;");
+    response.getWriter().println(new Gson().toJson(sentiments));
+  }
+}
@@ -23,6 +23,8 @@ import com.google.appengine.api.users.UserService;
 import com.google.appengine.api.users.UserServiceFactory;
 import com.google.gson.Gson;
 import com.google.sps.utils.Constants;
+import com.google.sps.utils.NicknameCache;
+import com.google.sps.utils.NicknameFanout;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -47,6 +49,9 @@ public class UpdateNicknameServlet extends HttpServlet {
 
     DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
     datastore.put(userInfoEntity);
+    NicknameCache.getInstance().put(userId, newNickname);
+    // Comments keep a copy of their author's nickname; update them in the background.
+    NicknameFanout.start(datastore, userId, newNickname);
     response.sendRedirect("/index.html#comments");
   }
 }
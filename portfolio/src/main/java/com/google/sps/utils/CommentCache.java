@@ -0,0 +1,241 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.utils;
+
+import com.google.appengine.api.memcache.Expiration;
+import com.google.appengine.api.memcache.MemcacheService;
+import com.google.appengine.api.memcache.MemcacheServiceFactory;
+import com.google.gson.Gson;
+import com.google.sps.data.Comment;
+import com.google.sps.data.CommentPage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/* In-process cache of the first page of comments, kept as ready-to-send JSON for each limit.
+ * Along with each comment it keeps the Datastore cursor after it, so the cached page can say where
+ * the next page starts.
+ * Every write to the comments bumps a generation number. A write that was the only change since
+ * the cache was filled is applied to the cached comments directly (write-through); any other
+ * change just makes the cached comments stale, and the next read reloads them.
+ *
+ * If the comments.cache.memcache system property is true (as appengine-web.xml sets it), the
+ * generation and the JSON are also kept in memcache, so every instance sees the same generation and
+ * can reuse JSON rendered by another, and a poster sees their comment whichever instance serves
+ * their next read. While memcache is unavailable every read reloads the comments.
+ * Otherwise each instance only knows about its own writes, so cached comments are also reloaded
+ * once they are older than LOCAL_TTL_MILLIS.
+ */
+public final class CommentCache {
+  /* Most comments kept in the cache; reads with a bigger limit go to Datastore. */
+  public static final int MAX_CACHED_COMMENTS = 50;
+
+  /* Limits offered by the page, rendered as soon as the comments are loaded. */
+  private static final int[] COMMON_LIMITS = {1, 2, 5, 10};
+
+  private static final long LOCAL_TTL_MILLIS = 60 * 1000;
+  private static final int MEMCACHE_TTL_SECONDS = 10 * 60;
+  private static final String GENERATION_KEY = "comments-generation";
+  private static final String JSON_KEY_PREFIX = "comments-json:";
+
+  private static final CommentCache INSTANCE =
+      new CommentCache(Boolean.getBoolean("comments.cache.memcache"));
+
+  private final MemcacheService memcache;
+  private final Gson gson = new Gson();
+
+  private long localGeneration;
+  /* Generation of the cached comments, or -1 if nothing is cached. */
+  private long cachedGeneration = -1;
+  private long loadedAtMillis;
+  /* The latest comments, newest first. */
+  private List<Comment> latest = new ArrayList<>();
+  /* The cursor after each comment in latest, or null where it isn't known. */
+  private List<String> cursors = new ArrayList<>();
+  /* Whether latest holds every comment in Datastore. */
+  private boolean complete;
+  private final Map<Integer, String> jsonByLimit = new HashMap<>();
+
+  private CommentCache(boolean useMemcache) {
+    this.memcache = useMemcache ? MemcacheServiceFactory.getMemcacheService() : null;
+  }
+
+  public static CommentCache getInstance() {
+    return INSTANCE;
+  }
+
+  /* Returns the first page of limit comments as CommentPage JSON. loader is called with a limit
+   * to load the first page of that many comments when the cache can't answer. */
+  public synchronized String getJson(int limit, Function<Integer, CommentPage> loader) {
+    if (limit > MAX_CACHED_COMMENTS) {
+      return gson.toJson(loader.apply(limit));
+    }
+
+    long generation = currentGeneration();
+    boolean expired = memcache == null
+        && System.currentTimeMillis() - loadedAtMillis > LOCAL_TTL_MILLIS;
+    if (generation == cachedGeneration && !expired) {
+      String json = getSlice(limit);
+      if (json != null) {
+        return json;
+      }
+    }
+
+    String shared = getShared(generation, limit);
+    if (shared != null) {
+      return shared;
+    }
+
+    CommentPage page = loader.apply(MAX_CACHED_COMMENTS);
+    apply(generation, page.getComments(), page.getCursors(), page.getNext() == null);
+    return getSlice(limit);
+  }
+
+  /* Records that comment was just stored in Datastore. */
+  public synchronized void commentAdded(Comment comment) {
+    long previous = cachedGeneration;
+    long generation = nextGeneration();
+    if (cachedGeneration >= 0 && generation == previous + 1) {
+      List<Comment> updated = new ArrayList<>(latest.size() + 1);
+      List<String> updatedCursors = new ArrayList<>(latest.size() + 1);
+      // Only a query can tell where the cursor after the new comment is.
+      updated.add(comment);
+      updatedCursors.add(null);
+      for (int i = 0; i < latest.size(); i++) {
+        // The cache may have been filled after the comment was stored.
+        if (latest.get(i).getId() != comment.getId()) {
+          updated.add(latest.get(i));
+          updatedCursors.add(cursors.get(i));
+        }
+      }
+      boolean fits = updated.size() <= MAX_CACHED_COMMENTS;
+      if (!fits) {
+        updated.remove(updated.size() - 1);
+        updatedCursors.remove(updatedCursors.size() - 1);
+      }
+      apply(generation, updated, updatedCursors, complete && fits);
+    }
+  }
+
+  /* Records that the comment with id was just deleted from Datastore. */
+  public synchronized void commentDeleted(long id) {
+    long previous = cachedGeneration;
+    long generation = nextGeneration();
+    // Once a full cache loses a comment, only Datastore knows which one moves up to replace it.
+    if (cachedGeneration >= 0 && generation == previous + 1 && complete) {
+      List<Comment> updated = new ArrayList<>(latest.size());
+      List<String> updatedCursors = new ArrayList<>(latest.size());
+      for (int i = 0; i < latest.size(); i++) {
+        if (latest.get(i).getId() != id) {
+          updated.add(latest.get(i));
+          updatedCursors.add(cursors.get(i));
+        }
+      }
+      apply(generation, updated, updatedCursors, true);
+    }
+  }
+
+  /* Records that every comment was just deleted from Datastore. */
+  public synchronized void allCommentsDeleted() {
+    apply(nextGeneration(), new ArrayList<>(), new ArrayList<>(), true);
+  }
+
+  /* Records a change that affects how comments are shown, such as a new nickname. */
+  public synchronized void invalidate() {
+    nextGeneration();
+  }
+
+  private void apply(long generation, List<Comment> comments, List<String> commentCursors, boolean isComplete) {
+    cachedGeneration = generation;
+    loadedAtMillis = System.currentTimeMillis();
+    latest = comments;
+    cursors = commentCursors;
+    complete = isComplete;
+    jsonByLimit.clear();
+    for (int limit : COMMON_LIMITS) {
+      getSlice(limit);
+    }
+  }
+
+  /* Returns the JSON of the first page of limit comments, or null if the cursor after the page
+   * isn't known. */
+  private String getSlice(int limit) {
+    String json = jsonByLimit.get(limit);
+    if (json == null) {
+      json = render(limit);
+      if (json != null) {
+        jsonByLimit.put(limit, json);
+        putShared(cachedGeneration, limit, json);
+      }
+    }
+    return json;
+  }
+
+  private String render(int limit) {
+    int size = Math.min(Math.max(limit, 0), latest.size());
+    String next = null;
+    // A page shorter than the limit, or that ends at the last comment, has no next page.
+    if (size > 0 && size == limit && !(complete && size == latest.size())) {
+      next = cursors.get(size - 1);
+      if (next == null) {
+        return null;
+      }
+    }
+    return gson.toJson(new CommentPage(latest.subList(0, size), cursors.subList(0, size), next));
+  }
+
+  private long currentGeneration() {
+    if (memcache == null) {
+      return localGeneration;
+    }
+    Long generation = (Long) memcache.get(GENERATION_KEY);
+    if (generation == null) {
+      // Memcache was flushed; start a generation nobody has rendered yet.
+      return nextGeneration();
+    }
+    return generation;
+  }
+
+  private long nextGeneration() {
+    if (memcache == null) {
+      return ++localGeneration;
+    }
+    Long generation = memcache.increment(GENERATION_KEY, 1, System.currentTimeMillis());
+    if (generation == null) {
+      // Memcache is unavailable, so nothing cached can be trusted. Shared generations start at the
+      // current time, far above any local one.
+      cachedGeneration = -1;
+      jsonByLimit.clear();
+      return ++localGeneration;
+    }
+    return generation;
+  }
+
+  private String getShared(long generation, int limit) {
+    if (memcache == null) {
+      return null;
+    }
+    return (String) memcache.get(JSON_KEY_PREFIX + generation + ":" + limit);
+  }
+
+  private void putShared(long generation, int limit, String json) {
+    if (memcache != null) {
+      memcache.put(JSON_KEY_PREFIX + generation + ":" + limit, json,
+          Expiration.byDeltaSeconds(MEMCACHE_TTL_SECONDS));
+    }
+  }
+}
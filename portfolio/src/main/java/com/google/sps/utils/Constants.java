@@ -16,13 +16,19 @@ package com.google.sps.utils;
 
 public final class Constants {
   public static final String ENTITY_COMMENT = "Comment";
+  public static final String ENTITY_NICKNAME_FANOUT = "NicknameFanout";
   public static final String ENTITY_USER_INFO = "UserInfo";
   public static final String PARAMETER_COMMENT_ID = "commentId";
   public static final String PARAMETER_LIMIT = "limit";
+  public static final String PARAMETER_CURSOR = "cursor";
   public static final String PROPERTY_COMMENT = "comment";
+  public static final String PROPERTY_CURSOR = "cursor";
+  public static final String PROPERTY_DONE = "done";
   public static final String PROPERTY_NAME = "name";
   public static final String PROPERTY_NICKNAME = "nickname";
   public static final String PROPERTY_TIMESTAMP = "timestamp";
+  public static final String PROPERTY_UPDATED_COUNT = "updatedCount";
   public static final String PROPERTY_USER_ID = "userId";
   public static final String PROPERTY_SENTIMENT = "sentiment";
+  public static final String PROPERTY_SENTIMENT_PENDING = "sentimentPending";
 }
@@ -0,0 +1,97 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.utils;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/* Near-cache of user nicknames, keyed by user id. Nicknames that aren't cached, or were cached
+ * more than TTL_MILLIS ago, are fetched with one batch get of the users' UserInfo entities, which
+ * are keyed by user id. Users without a nickname are cached too, so they don't cause a lookup on
+ * every request. A rename on another instance shows up here once the cached nickname expires.
+ */
+public final class NicknameCache {
+  private static final long TTL_MILLIS = 5 * 60 * 1000;
+  private static final int MAX_ENTRIES = 10000;
+
+  private static final NicknameCache INSTANCE = new NicknameCache();
+
+  /* Least recently used entries first, so the oldest can be dropped when the cache is full. */
+  private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+
+  private NicknameCache() {}
+
+  public static NicknameCache getInstance() {
+    return INSTANCE;
+  }
+
+  /* Returns a Map of <userId, nickname> for userIds. Users without a nickname map to null. */
+  public synchronized Map<String, String> getNicknames(DatastoreService datastore, Collection<String> userIds) {
+    long now = System.currentTimeMillis();
+    Map<String, String> nicknames = new HashMap<>();
+    List<Key> missing = new ArrayList<>();
+    for (String userId : userIds) {
+      if (nicknames.containsKey(userId)) {
+        continue;
+      }
+      Entry entry = entries.get(userId);
+      if (entry != null && entry.expiresAtMillis > now) {
+        nicknames.put(userId, entry.nickname);
+      } else {
+        nicknames.put(userId, null);
+        missing.add(KeyFactory.createKey(Constants.ENTITY_USER_INFO, userId));
+      }
+    }
+
+    if (!missing.isEmpty()) {
+      Map<Key, Entity> found = datastore.get(missing);
+      for (Key key : missing) {
+        Entity entity = found.get(key);
+        String nickname = entity == null ? null : (String) entity.getProperty(Constants.PROPERTY_NICKNAME);
+        nicknames.put(key.getName(), nickname);
+        entries.put(key.getName(), new Entry(nickname, now + TTL_MILLIS));
+      }
+    }
+    return nicknames;
+  }
+
+  /* Records that the user with userId has just set nickname. */
+  public synchronized void put(String userId, String nickname) {
+    entries.put(userId, new Entry(nickname, System.currentTimeMillis() + TTL_MILLIS));
+  }
+
+  private static final class Entry {
+    private final String nickname;
+    private final long expiresAtMillis;
+
+    private Entry(String nickname, long expiresAtMillis) {
+      this.nickname = nickname;
+      this.expiresAtMillis = expiresAtMillis;
+    }
+  }
+}
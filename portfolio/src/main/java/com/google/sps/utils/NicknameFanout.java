@@ -0,0 +1,142 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.utils;
+
+import com.google.appengine.api.datastore.Cursor;
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.QueryResultList;
+import com.google.appengine.api.datastore.Transaction;
+import com.google.appengine.api.datastore.TransactionOptions;
+import com.google.appengine.api.taskqueue.QueueFactory;
+import com.google.appengine.api.taskqueue.TaskOptions;
+import java.util.ArrayList;
+import java.util.List;
+
+/* Copies a user's new nickname onto all of their comments, so that reading comments never needs
+ * to look nicknames up. The copy runs in the background as a chain of push tasks, each rewriting
+ * one batch of comments in a single cross-group transaction and then queueing the next batch.
+ *
+ * Progress is kept in a NicknameFanout entity keyed by user id: the nickname being copied, how
+ * many comments were updated so far, the cursor of the next batch and whether the copy is done.
+ * A new rename replaces that entity, which makes a copy still running for an older nickname stop
+ * at its next batch.
+ */
+public final class NicknameFanout {
+  public static final String TASK_URL = "/tasks/rename-comments";
+
+  // A cross-group transaction can write at most 25 entity groups: the comments and the progress.
+  private static final int BATCH_SIZE = 24;
+
+  private NicknameFanout() {}
+
+  /* Starts copying nickname onto the comments of the user with userId. */
+  public static void start(DatastoreService datastore, String userId, String nickname) {
+    Entity progress = new Entity(Constants.ENTITY_NICKNAME_FANOUT, userId);
+    progress.setProperty(Constants.PROPERTY_NICKNAME, nickname);
+    progress.setProperty(Constants.PROPERTY_UPDATED_COUNT, 0L);
+    progress.setProperty(Constants.PROPERTY_DONE, false);
+    datastore.put(progress);
+    enqueue(userId, nickname, null);
+  }
+
+  /* Rewrites the batch of comments starting at cursor (null for the first batch) and queues the
+   * next one. Does nothing if the user has been renamed again since this copy started. */
+  public static void runBatch(DatastoreService datastore, String userId, String nickname, String cursor) {
+    Key progressKey = KeyFactory.createKey(Constants.ENTITY_NICKNAME_FANOUT, userId);
+    if (!isCurrent(getProgress(datastore, null, progressKey), nickname)) {
+      return;
+    }
+
+    Query query = new Query(Constants.ENTITY_COMMENT)
+        .setFilter(new Query.FilterPredicate(Constants.PROPERTY_USER_ID, Query.FilterOperator.EQUAL, userId))
+        .setKeysOnly();
+    FetchOptions options = FetchOptions.Builder.withLimit(BATCH_SIZE);
+    if (cursor != null) {
+      options.startCursor(Cursor.fromWebSafeString(cursor));
+    }
+    QueryResultList<Entity> batch = datastore.prepare(query).asQueryResultList(options);
+    List<Key> keys = new ArrayList<>();
+    for (Entity comment : batch) {
+      keys.add(comment.getKey());
+    }
+
+    boolean done = batch.size() < BATCH_SIZE;
+    String nextCursor = batch.getCursor().toWebSafeString();
+    List<Entity> changed = new ArrayList<>();
+    // Re-read the comments and the progress in one transaction, so the batch can't overwrite a
+    // sentiment scored or bring back a comment deleted since the query, and a copy for an older
+    // nickname can't write over a newer rename.
+    Transaction transaction = datastore.beginTransaction(TransactionOptions.Builder.withXG(true));
+    try {
+      Entity progress = getProgress(datastore, transaction, progressKey);
+      if (!isCurrent(progress, nickname)) {
+        return;
+      }
+      // Comments deleted since the query are missing from the result.
+      for (Entity comment : datastore.get(transaction, keys).values()) {
+        if (!nickname.equals(comment.getProperty(Constants.PROPERTY_NAME))) {
+          comment.setProperty(Constants.PROPERTY_NAME, nickname);
+          changed.add(comment);
+        }
+      }
+      long updatedCount = (long) progress.getProperty(Constants.PROPERTY_UPDATED_COUNT);
+      progress.setProperty(Constants.PROPERTY_UPDATED_COUNT, updatedCount + changed.size());
+      progress.setProperty(Constants.PROPERTY_CURSOR, nextCursor);
+      progress.setProperty(Constants.PROPERTY_DONE, done);
+      datastore.put(transaction, changed);
+      datastore.put(transaction, progress);
+      transaction.commit();
+    } finally {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+    }
+    if (!changed.isEmpty()) {
+      CommentCache.getInstance().invalidate();
+    }
+
+    if (!done) {
+      enqueue(userId, nickname, nextCursor);
+    }
+  }
+
+  private static Entity getProgress(DatastoreService datastore, Transaction transaction, Key progressKey) {
+    try {
+      return datastore.get(transaction, progressKey);
+    } catch (EntityNotFoundException e) {
+      return null;
+    }
+  }
+
+  private static boolean isCurrent(Entity progress, String nickname) {
+    return progress != null && nickname.equals(progress.getProperty(Constants.PROPERTY_NICKNAME));
+  }
+
+  private static void enqueue(String userId, String nickname, String cursor) {
+    TaskOptions task = TaskOptions.Builder.withUrl(TASK_URL)
+        .param(Constants.PROPERTY_USER_ID, userId)
+        .param(Constants.PROPERTY_NICKNAME, nickname);
+    if (cursor != null) {
+      task.param(Constants.PROPERTY_CURSOR, cursor);
+    }
+    QueueFactory.getDefaultQueue().add(task);
+  }
+}
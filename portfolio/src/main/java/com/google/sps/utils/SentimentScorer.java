@@ -0,0 +1,174 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.utils;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.Transaction;
+import com.google.appengine.api.datastore.TransactionOptions;
+import com.google.appengine.api.taskqueue.QueueFactory;
+import com.google.appengine.api.taskqueue.TaskOptions;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.language.v1.Document;
+import com.google.cloud.language.v1.LanguageServiceClient;
+import com.google.cloud.language.v1.Sentiment;
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/* Scores the sentiment of comments in the background, so that posting a comment doesn't wait for
+ * the Natural Language API. A comment is stored with a sentimentPending property instead of a
+ * sentiment, and a push task is queued for it. The task scores that comment together with a batch
+ * of any other comments still pending, using one LanguageServiceClient, and stores the scores with
+ * a single put. The pending property is durable, so comments whose task failed for good are picked
+ * up by the next task.
+ */
+public final class SentimentScorer {
+  public static final String TASK_URL = "/tasks/score-sentiment";
+
+  // A cross-group transaction can write at most 25 entity groups.
+  private static final int BATCH_SIZE = 25;
+
+  private static final String NO_SENTIMENT = "No sentiment found";
+
+  private SentimentScorer() {}
+
+  /* Marks commentEntity, which has not been stored yet, as waiting for its sentiment score. */
+  public static void markPending(Entity commentEntity) {
+    commentEntity.setProperty(Constants.PROPERTY_SENTIMENT_PENDING, true);
+  }
+
+  public static boolean isPending(Entity commentEntity) {
+    return Boolean.TRUE.equals(commentEntity.getProperty(Constants.PROPERTY_SENTIMENT_PENDING));
+  }
+
+  /* Queues scoring of the stored comment with commentId. */
+  public static void schedule(long commentId) {
+    enqueue(commentId);
+  }
+
+  /* Scores the comment with commentId (null if there is none) and a batch of other pending
+   * comments, and queues another task if more comments may be pending. Throws if the Natural
+   * Language API fails, so that the task queue retries the task. */
+  public static void runBatch(DatastoreService datastore, Long commentId) throws IOException {
+    Set<Key> keys = new LinkedHashSet<>();
+    if (commentId != null) {
+      keys.add(KeyFactory.createKey(Constants.ENTITY_COMMENT, commentId));
+    }
+    // The query may not see comments stored a moment ago, which is why each task names its own.
+    Query query = new Query(Constants.ENTITY_COMMENT)
+        .setFilter(new Query.FilterPredicate(Constants.PROPERTY_SENTIMENT_PENDING, Query.FilterOperator.EQUAL, true))
+        .setKeysOnly();
+    List<Entity> pending = datastore.prepare(query).asList(FetchOptions.Builder.withLimit(BATCH_SIZE));
+    for (Entity entity : pending) {
+      if (keys.size() == BATCH_SIZE) {
+        break;
+      }
+      keys.add(entity.getKey());
+    }
+
+    // Score outside of the transaction, which shouldn't be held open across slow RPCs.
+    Map<Key, String> scores = new HashMap<>();
+    try (LanguageServiceClient languageService = LanguageServiceClient.create()) {
+      for (Entity entity : datastore.get(keys).values()) {
+        if (isPending(entity)) {
+          String commentText = (String) entity.getProperty(Constants.PROPERTY_COMMENT);
+          scores.put(entity.getKey(), getSentimentAnalysis(languageService, commentText));
+        }
+      }
+    }
+
+    if (!scores.isEmpty()) {
+      // Re-read the comments in a transaction, so that the scores can't overwrite a nickname
+      // copied onto them, or bring back a comment deleted, in the meantime.
+      Transaction transaction = datastore.beginTransaction(TransactionOptions.Builder.withXG(true));
+      try {
+        List<Entity> scored = new ArrayList<>();
+        for (Entity entity : datastore.get(transaction, scores.keySet()).values()) {
+          if (isPending(entity)) {
+            entity.setProperty(Constants.PROPERTY_SENTIMENT, scores.get(entity.getKey()));
+            entity.removeProperty(Constants.PROPERTY_SENTIMENT_PENDING);
+            scored.add(entity);
+          }
+        }
+        datastore.put(transaction, scored);
+        transaction.commit();
+      } finally {
+        if (transaction.isActive()) {
+          transaction.rollback();
+        }
+      }
+      CommentCache.getInstance().invalidate();
+    }
+
+    if (pending.size() == BATCH_SIZE) {
+      enqueue(null);
+    }
+  }
+
+  /* Given a message returns its sentiment score rounded to 3 decimal places, or NO_SENTIMENT if
+   * the message can never be scored. Throws if the Natural Language API failed in a way that a
+   * retry may fix. */
+  private static String getSentimentAnalysis(LanguageServiceClient languageService, String message) {
+    if (message == null || message.trim().isEmpty()) {
+      return NO_SENTIMENT;
+    }
+    Document doc =
+        Document.newBuilder().setContent(message).setType(Document.Type.PLAIN_TEXT).build();
+    Sentiment sentiment;
+    try {
+      sentiment = languageService.analyzeSentiment(doc).getDocumentSentiment();
+    } catch (ApiException e) {
+      if (isTransient(e)) {
+        throw e;
+      }
+      // Errors such as an unsupported language would fail every retry, keeping the comment
+      // pending and holding up the comments after it.
+      return NO_SENTIMENT;
+    }
+    if (sentiment == null) {
+        return NO_SENTIMENT;
+    }
+    return new DecimalFormat("#.###").format(sentiment.getScore());
+  }
+
+  private static boolean isTransient(ApiException e) {
+    if (e.isRetryable()) {
+      return true;
+    }
+    StatusCode.Code code = e.getStatusCode().getCode();
+    return code == StatusCode.Code.UNAVAILABLE || code == StatusCode.Code.DEADLINE_EXCEEDED
+        || code == StatusCode.Code.RESOURCE_EXHAUSTED || code == StatusCode.Code.ABORTED
+        || code == StatusCode.Code.INTERNAL;
+  }
+
+  private static void enqueue(Long commentId) {
+    TaskOptions task = TaskOptions.Builder.withUrl(TASK_URL);
+    if (commentId != null) {
+      task.param(Constants.PARAMETER_COMMENT_ID, Long.toString(commentId));
+    }
+    QueueFactory.getDefaultQueue().add(task);
+  }
+}
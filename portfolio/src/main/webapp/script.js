@@ -30,7 +30,7 @@ async function getComments() {
             document.getElementById('comment-limit').value;
   localStorage.setItem("limit", limit);
   document.getElementById("comment-limit").value = limit;
-  fetchComments(limit);
+  await fetchComments(limit);
 }
 
 /* On change of selected limit of displayed comments, 
@@ -42,22 +42,79 @@ async function getCommentsWithLimit() {
   fetchComments(limit);
 }
 
-/* Given a limit N, fetches N comments from /data and puts results into comments-text element */
+/* Cursor of the next page of comments, or null if every comment has been shown */
+let nextCommentsCursor = null;
+/* Page size of the comments currently shown */
+let commentsLimit = null;
+let isFetchingComments = false;
+/* Bumped whenever the comments are reloaded, so responses to earlier requests can be dropped */
+let commentsGeneration = 0;
+
+/* Given a limit N, fetches the first N comments from /data and puts results into comments-text element */
 async function fetchComments(limit) {
   document.getElementById('comments-spinner').style.display = "block";
+  isFetchingComments = true;
+  const generation = ++commentsGeneration;
   const commentsElement = document.getElementById('comments-text');
   const response = await fetch('/data?limit=' + limit);
-  const comments = await response.json();
+  const page = await response.json();
+  if (generation !== commentsGeneration) {
+    return;
+  }
   commentsElement.innerHTML = '';
-  for (let i = 0; i < comments.length; i++) {
-    commentsElement.appendChild(createComment(comments[i]));
+  for (let i = 0; i < page.comments.length; i++) {
+    commentsElement.appendChild(createComment(page.comments[i]));
   }
-  if (comments.length === 0) {
+  if (page.comments.length === 0) {
     commentsElement.innerText = "No comments";
   }
+  commentsLimit = limit;
+  nextCommentsCursor = page.next;
+  isFetchingComments = false;
+  document.getElementById('comments-spinner').style.display = "none";
+}
+
+/* Fetches the page of comments after the ones shown and appends it to comments-text element,
+ * translated into the selected language
+ */
+async function fetchMoreComments() {
+  if (isFetchingComments || nextCommentsCursor === null) {
+    return;
+  }
+  document.getElementById('comments-spinner').style.display = "block";
+  isFetchingComments = true;
+  const generation = commentsGeneration;
+  const response = await fetch('/data?limit=' + commentsLimit + '&cursor=' + encodeURIComponent(nextCommentsCursor));
+  const page = await response.json();
+  const pageElement = document.createElement('div');
+  for (let i = 0; i < page.comments.length; i++) {
+    pageElement.appendChild(createComment(page.comments[i]));
+  }
+  const languageCode = document.getElementById('language').value;
+  if (languageCode !== "en" && page.comments.length > 0) {
+    const translated = await fetch('/translate?languageCode=' + languageCode + '&text=' + encodeURIComponent(pageElement.innerHTML));
+    pageElement.innerHTML = await translated.text();
+  }
+  /* The comments were reloaded in the meantime, so this page no longer follows the ones shown */
+  if (generation !== commentsGeneration) {
+    return;
+  }
+  document.getElementById('comments-text').appendChild(pageElement);
+  nextCommentsCursor = page.next;
+  isFetchingComments = false;
   document.getElementById('comments-spinner').style.display = "none";
 }
 
+/* Fetches the next page of comments whenever the end of the comments scrolls into view */
+function observeCommentsEnd() {
+  const observer = new IntersectionObserver(function(entries) {
+    if (entries[0].isIntersecting) {
+      fetchMoreComments();
+    }
+  });
+  observer.observe(document.getElementById('comments-end'));
+}
+
 /* Creates <div> element for a comment in format: "name: comment (delete button if the comment owner)" */
 function createComment(comment) {
   const form = document.createElement('form');
@@ -71,8 +128,11 @@ function createComment(comment) {
   paragraph.innerText = comment.name + ": " + comment.comment;
 
   const sentiment = document.createElement('p');
-  sentiment.setAttribute('class', 'card-text');
+  setAttributes(sentiment, {'class': 'card-text', 'id': 'sentiment-' + comment.id});
   sentiment.innerText = "[Sentiment: " + getSentiment(comment.sentiment) + "]";
+  if (comment.sentiment == null) {
+    waitForSentiment(comment.id);
+  }
 
   div.appendChild(paragraph);
   div.appendChild(sentiment);
@@ -158,7 +218,8 @@ async function displayCommentsForm() {
 
 async function bodyOnLoad() {
   displayCommentsForm();
-  getComments();
+  await getComments();
+  observeCommentsEnd();
 }
 
 function setAttributes(element, attributes) {
@@ -181,7 +242,51 @@ async function translateText() {
   document.getElementById('comments-spinner').style.display = "none";
 }
 
+/* Ids of shown comments whose sentiment is still being scored */
+const pendingSentimentIds = new Set();
+const SENTIMENT_POLL_MILLIS = 3000;
+let sentimentPollTimer = null;
+
+/* Shows the sentiment of the comment with the given id once it has been scored */
+function waitForSentiment(commentId) {
+  pendingSentimentIds.add(commentId);
+  if (sentimentPollTimer === null) {
+    sentimentPollTimer = setTimeout(pollSentiments, SENTIMENT_POLL_MILLIS);
+  }
+}
+
+/* Asks /sentiment for the scores of pending comments and shows the ones that are ready */
+async function pollSentiments() {
+  const ids = Array.from(pendingSentimentIds);
+  const query = ids.map(id => 'commentId=' + id).join('&');
+  try {
+    const response = await fetch('/sentiment?' + query);
+    const sentiments = await response.json();
+    for (const id of ids) {
+      if (id in sentiments) {
+        pendingSentimentIds.delete(id);
+        const element = document.getElementById('sentiment-' + id);
+        if (element !== null) {
+          element.innerText = "[Sentiment: " + getSentiment(sentiments[id]) + "]";
+        }
+      }
+    }
+  } finally {
+    // Stop waiting for comments that are no longer shown.
+    for (const id of pendingSentimentIds) {
+      if (document.getElementById('sentiment-' + id) === null) {
+        pendingSentimentIds.delete(id);
+      }
+    }
+    sentimentPollTimer = pendingSentimentIds.size > 0 ?
+        setTimeout(pollSentiments, SENTIMENT_POLL_MILLIS) : null;
+  }
+}
+
 function getSentiment(score) {
+  if (score == null) {
+    return "⏳";
+  }
   const value = parseFloat(score);
 
   const clearly_positive = 0.8;
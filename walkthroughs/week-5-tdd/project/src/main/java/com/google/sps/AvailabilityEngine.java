@@ -0,0 +1,43 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * One way of turning the busy times of a meeting's attendees into the slots where the meeting can
+ * take place. Different engines are cheaper for different shapes of request; see
+ * {@link QueryPlanner}.
+ */
+public interface AvailabilityEngine {
+  /**
+   * Returns a short, human-readable name for this engine, used when logging query plans.
+   */
+  String getName();
+
+  /**
+   * Returns the relative amount of work this engine would do to answer a query with the given
+   * {@code statistics}. Only the ratios between engines matter; the planner calibrates them against
+   * measured running times.
+   */
+  double estimateWork(QueryStatistics statistics);
+
+  /**
+   * Returns the slots of at least {@code duration} minutes during the day that do not overlap any
+   * of {@code busyTimes}, in chronological order. The engine may reorder {@code busyTimes}.
+   */
+  Collection<TimeRange> findAvailableTimes(List<TimeRange> busyTimes, long duration);
+}
@@ -0,0 +1,74 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * One meeting to be placed by a {@link BatchScheduler}. Meetings with a higher priority are placed
+ * first and are never given up to make room for lower-priority ones. Batch requests are considered
+ * read-only.
+ */
+public final class BatchRequest {
+  private final String title;
+  private final MeetingRequest request;
+  private final int priority;
+
+  /**
+   * Creates a batch request.
+   *
+   * @param title The title of the event to create once the meeting is placed. Must be non-null.
+   * @param request Who must attend and for how long. Optional attendees are not considered. Must
+   *     be non-null.
+   * @param priority How important the meeting is; higher is more important.
+   */
+  public BatchRequest(String title, MeetingRequest request, int priority) {
+    if (title == null) {
+      throw new IllegalArgumentException("title cannot be null");
+    }
+
+    if (request == null) {
+      throw new IllegalArgumentException("request cannot be null");
+    }
+
+    this.title = title;
+    this.request = request;
+    this.priority = priority;
+  }
+
+  /**
+   * Returns the title of the meeting.
+   */
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Returns who must attend and for how long.
+   */
+  public MeetingRequest getRequest() {
+    return request;
+  }
+
+  /**
+   * Returns the priority of the meeting; higher is more important.
+   */
+  public int getPriority() {
+    return priority;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s (priority %d)", title, priority);
+  }
+}
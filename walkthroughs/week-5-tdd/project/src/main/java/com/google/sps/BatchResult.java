@@ -0,0 +1,73 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of a {@link BatchScheduler} run: where each placed meeting goes, and which meetings
+ * could not be placed. Results are considered read-only.
+ */
+public final class BatchResult {
+  private final Map<BatchRequest, TimeRange> placements;
+  private final List<BatchRequest> unplaced;
+  private final boolean complete;
+
+  BatchResult(Map<BatchRequest, TimeRange> placements, List<BatchRequest> unplaced,
+      boolean complete) {
+    this.placements = placements;
+    this.unplaced = unplaced;
+    this.complete = complete;
+  }
+
+  /**
+   * Returns a read-only map from each placed request to its time, in the order the requests were
+   * given.
+   */
+  public Map<BatchRequest, TimeRange> getPlacements() {
+    return Collections.unmodifiableMap(placements);
+  }
+
+  /**
+   * Returns a read-only list of the requests that could not be placed, highest priority first.
+   */
+  public List<BatchRequest> getUnplaced() {
+    return Collections.unmodifiableList(unplaced);
+  }
+
+  /**
+   * Returns whether the scheduler finished searching before its time budget ran out. If not, the
+   * placements are still valid but possibly fewer than could be found with more time.
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * Returns an event for every placed meeting, ready to be added to a calendar.
+   */
+  public List<Event> toEvents() {
+    List<Event> events = new ArrayList<>();
+    for (Map.Entry<BatchRequest, TimeRange> placement : placements.entrySet()) {
+      BatchRequest request = placement.getKey();
+      events.add(new Event(request.getTitle(), placement.getValue(),
+          request.getRequest().getAttendees()));
+    }
+    return events;
+  }
+}
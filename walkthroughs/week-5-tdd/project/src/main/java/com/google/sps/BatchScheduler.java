@@ -0,0 +1,289 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Places many meetings at once, such as the interviews of a loop or a team's weekly rituals.
+ * Scheduling them one {@link FindMeetingQuery} at a time gives order-dependent results and
+ * recomputes everyone's availability for every meeting; this instead keeps one
+ * {@link MinuteBitmap} per attendee, shared by all requests, and updates it after each placement.
+ *
+ * <p>Meetings are first placed greedily from a priority queue: highest priority first, then the
+ * most constrained (least common free time), then the longest, each at its earliest fit. A local
+ * search then tries to place each leftover meeting by moving one already-placed meeting that is
+ * in its way. Both phases stop when the time budget runs out.
+ */
+public final class BatchScheduler {
+  private final long timeBudgetNanos;
+
+  /**
+   * Creates a scheduler that spends at most about {@code timeBudget} per run.
+   */
+  public BatchScheduler(long timeBudget, TimeUnit unit) {
+    if (timeBudget < 0) {
+      throw new IllegalArgumentException("timeBudget cannot be negative");
+    }
+
+    this.timeBudgetNanos = unit.toNanos(timeBudget);
+  }
+
+  /**
+   * Places as many of {@code requests} as possible around the existing {@code events}.
+   */
+  public BatchResult schedule(Collection<Event> events, List<BatchRequest> requests) {
+    Map<BatchRequest, Collection<String>> attendees = new IdentityHashMap<>();
+    Map<String, MinuteBitmap> busy = new HashMap<>();
+    for (BatchRequest request : requests) {
+      attendees.put(request, request.getRequest().getAttendees());
+      for (String attendee : request.getRequest().getAttendees()) {
+        busy.put(attendee, new MinuteBitmap());
+      }
+    }
+    for (Event event : events) {
+      for (String attendee : event.getAttendees()) {
+        MinuteBitmap bitmap = busy.get(attendee);
+        if (bitmap != null) {
+          bitmap.setBusy(event.getWhen());
+        }
+      }
+    }
+    return new Run(busy, attendees, requests).schedule();
+  }
+
+  /**
+   * Places as many of {@code requests} as possible around the events in {@code snapshot}. An
+   * attendee that names a {@link MaterializedGroup}, such as a distribution list, stands for each
+   * of the group's members, so meetings of the group and of a member never overlap.
+   */
+  public BatchResult schedule(CalendarSnapshot snapshot, List<BatchRequest> requests) {
+    Map<BatchRequest, Collection<String>> attendees = new IdentityHashMap<>();
+    Map<String, MinuteBitmap> busy = new HashMap<>();
+    for (BatchRequest request : requests) {
+      Set<String> people = new LinkedHashSet<>();
+      for (String attendee : request.getRequest().getAttendees()) {
+        MaterializedGroup group = snapshot.getGroup(attendee);
+        if (group == null) {
+          people.add(attendee);
+          continue;
+        }
+        people.addAll(group.getMembers());
+        // Events can also invite the group by name.
+        for (String member : group.getMembers()) {
+          MinuteBitmap bitmap = bitmapFor(member, snapshot, busy);
+          for (Event event : snapshot.getEventsFor(attendee)) {
+            bitmap.setBusy(event.getWhen());
+          }
+        }
+      }
+      for (String person : people) {
+        bitmapFor(person, snapshot, busy);
+      }
+      attendees.put(request, people);
+    }
+    return new Run(busy, attendees, requests).schedule();
+  }
+
+  /**
+   * Returns the bitmap of {@code person} in {@code busy}, first adding one that is busy during
+   * their events in {@code snapshot} if needed.
+   */
+  private static MinuteBitmap bitmapFor(
+      String person, CalendarSnapshot snapshot, Map<String, MinuteBitmap> busy) {
+    MinuteBitmap bitmap = busy.get(person);
+    if (bitmap == null) {
+      bitmap = new MinuteBitmap();
+      for (Event event : snapshot.getEventsFor(person)) {
+        bitmap.setBusy(event.getWhen());
+      }
+      busy.put(person, bitmap);
+    }
+    return bitmap;
+  }
+
+  /** The state of one call to {@code schedule}. */
+  private final class Run {
+    private final long deadline = System.nanoTime() + timeBudgetNanos;
+    private final Map<String, MinuteBitmap> busy;
+    // The people each request needs, with groups replaced by their members.
+    private final Map<BatchRequest, Collection<String>> attendees;
+    private final List<BatchRequest> requests;
+    private final Map<BatchRequest, TimeRange> placements = new IdentityHashMap<>();
+
+    private Run(Map<String, MinuteBitmap> busy, Map<BatchRequest, Collection<String>> attendees,
+        List<BatchRequest> requests) {
+      this.busy = busy;
+      this.attendees = attendees;
+      this.requests = requests;
+    }
+
+    BatchResult schedule() {
+      List<BatchRequest> unplaced = new ArrayList<>();
+      boolean complete = placeGreedily(unplaced) && improve(unplaced);
+
+      Map<BatchRequest, TimeRange> ordered = new LinkedHashMap<>();
+      for (BatchRequest request : requests) {
+        TimeRange when = placements.get(request);
+        if (when != null) {
+          ordered.put(request, when);
+        }
+      }
+      return new BatchResult(ordered, unplaced, complete);
+    }
+
+    /**
+     * Places every request at its earliest fit, in priority-queue order. Requests that don't fit
+     * are added to {@code unplaced} in the same order. Returns false if time ran out.
+     */
+    private boolean placeGreedily(List<BatchRequest> unplaced) {
+      Map<BatchRequest, Integer> freeMinutes = new IdentityHashMap<>();
+      for (BatchRequest request : requests) {
+        freeMinutes.put(request, combinedBusy(request).freeMinutes());
+      }
+      PriorityQueue<BatchRequest> queue = new PriorityQueue<>(Math.max(1, requests.size()),
+          Comparator.comparingInt((BatchRequest request) -> -request.getPriority())
+              .thenComparingInt(freeMinutes::get)
+              .thenComparingLong(request -> -request.getRequest().getDuration()));
+      queue.addAll(requests);
+
+      while (!queue.isEmpty()) {
+        if (outOfTime()) {
+          unplaced.addAll(drain(queue));
+          return false;
+        }
+        BatchRequest request = queue.poll();
+        if (!tryPlace(request)) {
+          unplaced.add(request);
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Repeatedly tries to place each unplaced request by moving a single placed request of no
+     * higher priority out of its way. Returns false if time ran out.
+     */
+    private boolean improve(List<BatchRequest> unplaced) {
+      boolean improved = true;
+      while (improved && !unplaced.isEmpty()) {
+        improved = false;
+        for (int i = 0; i < unplaced.size(); i++) {
+          if (outOfTime()) {
+            return false;
+          }
+          BatchRequest request = unplaced.get(i);
+          if (tryPlace(request) || tryPlaceByMoving(request)) {
+            unplaced.remove(i--);
+            improved = true;
+          }
+        }
+      }
+      return true;
+    }
+
+    private boolean tryPlaceByMoving(BatchRequest request) {
+      List<BatchRequest> blockers = new ArrayList<>();
+      for (BatchRequest placed : placements.keySet()) {
+        if (placed.getPriority() <= request.getPriority() && sharesAttendee(placed, request)) {
+          blockers.add(placed);
+        }
+      }
+      blockers.sort(Comparator.comparingInt(BatchRequest::getPriority));
+
+      for (BatchRequest blocker : blockers) {
+        TimeRange original = unplace(blocker);
+        if (tryPlace(request)) {
+          if (tryPlace(blocker)) {
+            return true;
+          }
+          unplace(request);
+        }
+        place(blocker, original);
+      }
+      return false;
+    }
+
+    private boolean tryPlace(BatchRequest request) {
+      long duration = request.getRequest().getDuration();
+      if (duration <= 0 || duration > MinuteBitmap.MINUTES_PER_DAY) {
+        return false;
+      }
+      int start = combinedBusy(request).firstFit(duration);
+      if (start < 0) {
+        return false;
+      }
+      place(request, TimeRange.fromStartDuration(start, (int) duration));
+      return true;
+    }
+
+    private void place(BatchRequest request, TimeRange when) {
+      placements.put(request, when);
+      for (String attendee : attendees.get(request)) {
+        busy.get(attendee).setBusy(when);
+      }
+    }
+
+    private TimeRange unplace(BatchRequest request) {
+      TimeRange when = placements.remove(request);
+      // Placements only ever go where every attendee was free, so freeing them again is exact.
+      for (String attendee : attendees.get(request)) {
+        busy.get(attendee).setFree(when.start(), when.end());
+      }
+      return when;
+    }
+
+    private MinuteBitmap combinedBusy(BatchRequest request) {
+      MinuteBitmap combined = new MinuteBitmap();
+      for (String attendee : attendees.get(request)) {
+        combined.or(busy.get(attendee));
+      }
+      return combined;
+    }
+
+    private boolean sharesAttendee(BatchRequest a, BatchRequest b) {
+      Collection<String> others = attendees.get(b);
+      for (String attendee : attendees.get(a)) {
+        if (others.contains(attendee)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean outOfTime() {
+      return System.nanoTime() - deadline >= 0;
+    }
+  }
+
+  private static List<BatchRequest> drain(PriorityQueue<BatchRequest> queue) {
+    List<BatchRequest> drained = new ArrayList<>();
+    while (!queue.isEmpty()) {
+      drained.add(queue.poll());
+    }
+    return drained;
+  }
+}
@@ -0,0 +1,60 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.List;
+
+/**
+ * The two hot loops of bitmap-based availability: combining many busy bitmaps with OR, and finding
+ * the runs of free minutes that are long enough for a meeting. Bitmaps use the layout of
+ * {@link MinuteBitmap#words()} and can cover any number of minutes, such as a day or a week.
+ *
+ * <p>{@link #select(int)} picks the implementation for a request: the plain scalar loops for
+ * small requests, and the word-parallel kernel once there are enough bitmaps for its fixed costs
+ * to pay off.
+ */
+interface BitmapKernel {
+  // The number of bitmaps from which the word-parallel kernel is used.
+  int WIDE_REQUEST_BITMAPS = 50;
+
+  /** Receives the free runs found by {@link #forEachFreeRun}. */
+  interface RunConsumer {
+    /**
+     * Called with a free run from {@code start} (inclusive) to {@code end} (exclusive).
+     */
+    void accept(int start, int end);
+  }
+
+  /**
+   * Returns the kernel to use for combining {@code bitmapCount} bitmaps.
+   */
+  static BitmapKernel select(int bitmapCount) {
+    return bitmapCount >= WIDE_REQUEST_BITMAPS
+        ? WordParallelBitmapKernel.INSTANCE : ScalarBitmapKernel.INSTANCE;
+  }
+
+  /**
+   * Sets every bit of {@code into} that is set in any of {@code bitmaps}. Every bitmap must be at
+   * least as long as {@code into}.
+   */
+  void or(long[] into, List<long[]> bitmaps);
+
+  /**
+   * Passes every run of at least {@code duration} clear bits among the first {@code minutes} bits
+   * of {@code busy} to {@code consumer}, in order. A run is never split: it is passed with its full
+   * length.
+   */
+  void forEachFreeRun(long[] busy, int minutes, long duration, RunConsumer consumer);
+}
@@ -0,0 +1,123 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Helpers for lists of merged busy times: sorted by start, with no two ranges overlapping.
+ */
+final class BusyTimes {
+  private BusyTimes() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns the ranges of {@code busyTimes} sorted by start, with overlapping ranges combined.
+   * Ranges without a duration are dropped.
+   */
+  static List<TimeRange> merge(Collection<TimeRange> busyTimes) {
+    return mergeSorted(sort(busyTimes));
+  }
+
+  /**
+   * Returns the ranges of {@code busyTimes} that have a duration, sorted by start.
+   */
+  static List<TimeRange> sort(Collection<TimeRange> busyTimes) {
+    List<TimeRange> sorted = new ArrayList<>(busyTimes.size());
+    for (TimeRange busy : busyTimes) {
+      if (busy.duration() > 0) {
+        sorted.add(busy);
+      }
+    }
+    Collections.sort(sorted, TimeRange.ORDER_BY_START);
+    return sorted;
+  }
+
+  /**
+   * Returns {@code sorted}, which must be sorted by start, with overlapping ranges combined.
+   */
+  static List<TimeRange> mergeSorted(List<TimeRange> sorted) {
+    if (sorted.isEmpty()) {
+      return sorted;
+    }
+
+    List<TimeRange> merged = new ArrayList<>();
+    TimeRange current = sorted.get(0);
+    for (int i = 1; i < sorted.size(); i++) {
+      TimeRange next = sorted.get(i);
+      if (current.overlaps(next)) {
+        current = union(current, next);
+      } else {
+        merged.add(current);
+        current = next;
+      }
+    }
+    merged.add(current);
+    return merged;
+  }
+
+  /**
+   * Adds {@code range} to the already-merged list {@code merged}, combining it with any ranges it
+   * overlaps so that the list stays merged.
+   */
+  static void insert(List<TimeRange> merged, TimeRange range) {
+    if (range.duration() <= 0) {
+      return;
+    }
+
+    int index = firstEndingAfter(merged, range.start());
+    while (index < merged.size() && merged.get(index).overlaps(range)) {
+      range = union(range, merged.remove(index));
+    }
+    merged.add(index, range);
+  }
+
+  /**
+   * Returns whether any range of {@code merged} overlaps the minutes from {@code start} to
+   * {@code end} (exclusive).
+   */
+  static boolean overlapsAny(List<TimeRange> merged, int start, int end) {
+    int index = firstEndingAfter(merged, start);
+    return index < merged.size() && merged.get(index).start() < end;
+  }
+
+  /**
+   * Returns the index of the first range of {@code merged} that ends after {@code minute}; it is
+   * the first that can overlap anything starting at {@code minute}.
+   */
+  private static int firstEndingAfter(List<TimeRange> merged, int minute) {
+    int low = 0;
+    int high = merged.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (merged.get(middle).end() <= minute) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private static TimeRange union(TimeRange a, TimeRange b) {
+    int start = Math.min(a.start(), b.start());
+    int end = Math.max(a.end(), b.end());
+    return TimeRange.fromStartEnd(start, end, /* inclusive */false);
+  }
+}
@@ -0,0 +1,41 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One partition of a {@link PartitionedCalendar}, holding the events of the attendees that hash to
+ * it. A shard may live in the same JVM, like {@link LocalCalendarShard}, or behind a network
+ * connection; every call is asynchronous so that a coordinator can fan a request out to all
+ * shards at once.
+ */
+public interface CalendarShard {
+  /**
+   * Applies {@code mutations} to this shard's events. The future completes once a later
+   * {@link #getBusyWords} call will see them.
+   */
+  CompletableFuture<Void> apply(List<EventMutation> mutations);
+
+  /**
+   * Returns, for each of {@code attendeeSets}, a bitmap of the minutes when at least one attendee
+   * of the set is busy. A bitmap holds one bit per minute of the day, minute {@code m} being bit
+   * {@code m % 64} of word {@code m / 64}. Answering several sets in one call lets a coordinator
+   * fetch everything a query needs in a single round trip.
+   */
+  CompletableFuture<List<long[]>> getBusyWords(List<Collection<String>> attendeeSets);
+}
@@ -0,0 +1,345 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable view of every event in the calendar at one point in time, together with an index
+ * of events by attendee and the busy times of every {@link MaterializedGroup}. Snapshots are never
+ * modified once published, so any number of readers can use one without locking while newer
+ * snapshots are being built.
+ */
+public final class CalendarSnapshot {
+  public static final CalendarSnapshot EMPTY = new CalendarSnapshot(
+      0, new ArrayList<>(), new HashMap<>(), new HashMap<>(), new HashMap<>());
+
+  private static final long[] EMPTY_WORDS = new long[MinuteBitmap.WORDS];
+
+  private final long version;
+  private final List<Event> events;
+  private final Map<String, List<Event>> eventsByAttendee;
+  private final Map<String, MaterializedGroup> groups;
+  // The names of the groups each attendee is a member of.
+  private final Map<String, Set<String>> groupsByMember;
+  // Compressed busy times of attendees, built the first time each one is asked for. Caching them
+  // doesn't change what the snapshot holds, so it stays immutable as far as readers can tell.
+  private final Map<String, CompressedBusyList> busyLists = new ConcurrentHashMap<>();
+  private final Map<String, long[]> busyWords = new ConcurrentHashMap<>();
+
+  private CalendarSnapshot(long version, List<Event> events,
+      Map<String, List<Event>> eventsByAttendee, Map<String, MaterializedGroup> groups,
+      Map<String, Set<String>> groupsByMember) {
+    this.version = version;
+    this.events = events;
+    this.eventsByAttendee = eventsByAttendee;
+    this.groups = groups;
+    this.groupsByMember = groupsByMember;
+  }
+
+  /**
+   * Returns the version of this snapshot. Every applied batch of mutations increases the version
+   * by one.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns a read-only list of all events in this snapshot.
+   */
+  public List<Event> getEvents() {
+    return Collections.unmodifiableList(events);
+  }
+
+  /**
+   * Returns a read-only list of the events that {@code attendee} is attending.
+   */
+  public List<Event> getEventsFor(String attendee) {
+    List<Event> attended = eventsByAttendee.get(attendee);
+    return attended == null ? Collections.emptyList() : Collections.unmodifiableList(attended);
+  }
+
+  /**
+   * Returns the merged busy times of {@code attendee} in compressed form. The list is built once
+   * per snapshot and attendee, and shared by all later callers, such as ranked queries that score
+   * every candidate slot against each optional attendee.
+   */
+  public CompressedBusyList getBusyList(String attendee) {
+    List<Event> attended = eventsByAttendee.get(attendee);
+    if (attended == null) {
+      return CompressedBusyList.EMPTY;
+    }
+    return busyLists.computeIfAbsent(attendee, key -> {
+      List<TimeRange> busyTimes = new ArrayList<>(attended.size());
+      for (Event event : attended) {
+        busyTimes.add(event.getWhen());
+      }
+      return CompressedBusyList.of(busyTimes);
+    });
+  }
+
+  /**
+   * Returns the busy minutes of {@code attendee} as {@link MinuteBitmap} words. Like
+   * {@link #getBusyList}, the bitmap is built once per snapshot and attendee and then shared, so
+   * callers must not modify it.
+   */
+  long[] getBusyWords(String attendee) {
+    List<Event> attended = eventsByAttendee.get(attendee);
+    if (attended == null) {
+      return EMPTY_WORDS;
+    }
+    return busyWords.computeIfAbsent(attendee, key -> {
+      MinuteBitmap bitmap = new MinuteBitmap();
+      for (Event event : attended) {
+        bitmap.setBusy(event.getWhen());
+      }
+      return bitmap.words();
+    });
+  }
+
+  /**
+   * Returns a read-only set of everyone attending at least one event in this snapshot.
+   */
+  public Set<String> getAttendees() {
+    return Collections.unmodifiableSet(eventsByAttendee.keySet());
+  }
+
+  /**
+   * Returns the group called {@code name}, or {@code null} if there is no such group.
+   */
+  public MaterializedGroup getGroup(String name) {
+    return groups.get(name);
+  }
+
+  /**
+   * Returns a read-only collection of every group in this snapshot.
+   */
+  public Collection<MaterializedGroup> getGroups() {
+    return Collections.unmodifiableCollection(groups.values());
+  }
+
+  /**
+   * Returns the groups whose members all appear in {@code attendees}.
+   */
+  public List<MaterializedGroup> getGroupsWithin(Collection<String> attendees) {
+    if (groups.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    Set<String> candidates = new HashSet<>();
+    for (String attendee : attendees) {
+      candidates.addAll(groupsByMember.getOrDefault(attendee, Collections.emptySet()));
+    }
+
+    List<MaterializedGroup> within = new ArrayList<>();
+    for (String name : candidates) {
+      MaterializedGroup group = groups.get(name);
+      if (attendees.containsAll(group.getMembers())) {
+        within.add(group);
+      }
+    }
+    return within;
+  }
+
+  /**
+   * Returns a new snapshot with {@code mutations} applied in order. See
+   * {@link #apply(List, Map)}.
+   */
+  CalendarSnapshot apply(List<EventMutation> mutations) {
+    return apply(mutations, Collections.emptyMap());
+  }
+
+  /**
+   * Returns a new snapshot with {@code groupChanges} and then {@code mutations} applied. This
+   * snapshot is left untouched: the event list is copied once for the whole batch and only the
+   * index entries of attendees touched by the batch are copied, the rest are shared with this
+   * snapshot.
+   *
+   * <p>Group busy times are kept up to date incrementally: an added event is merged into the busy
+   * times of each group containing one of its attendees. Removing an event can split a busy time,
+   * so affected groups are instead recomputed from their members' events once per batch.
+   *
+   * @param groupChanges maps group names to their new members, or to {@code null} to delete the
+   *     group
+   */
+  CalendarSnapshot apply(List<EventMutation> mutations,
+      Map<String, Collection<String>> groupChanges) {
+    List<Event> nextEvents = new ArrayList<>(events);
+    Map<String, List<Event>> nextIndex = new HashMap<>(eventsByAttendee);
+    Set<String> copied = new HashSet<>();
+
+    Map<String, MaterializedGroup> nextGroups = new HashMap<>(groups);
+    Map<String, Set<String>> nextGroupsByMember = groupsByMember;
+    // Groups whose busy times must be rebuilt from scratch at the end of the batch.
+    Set<String> stale = new HashSet<>();
+    // Busy times of groups that have only had events added so far, copied from this snapshot.
+    Map<String, List<TimeRange>> grown = new HashMap<>();
+
+    if (!groupChanges.isEmpty()) {
+      nextGroupsByMember = new HashMap<>(groupsByMember);
+      for (Map.Entry<String, Collection<String>> change : groupChanges.entrySet()) {
+        String name = change.getKey();
+        MaterializedGroup previous = nextGroups.remove(name);
+        if (previous != null) {
+          for (String member : previous.getMembers()) {
+            Set<String> names = new HashSet<>(nextGroupsByMember.get(member));
+            names.remove(name);
+            if (names.isEmpty()) {
+              nextGroupsByMember.remove(member);
+            } else {
+              nextGroupsByMember.put(member, names);
+            }
+          }
+        }
+        if (change.getValue() != null) {
+          MaterializedGroup group =
+              new MaterializedGroup(name, change.getValue(), CompressedBusyList.EMPTY);
+          nextGroups.put(name, group);
+          for (String member : group.getMembers()) {
+            Set<String> names = new HashSet<>(
+                nextGroupsByMember.getOrDefault(member, Collections.emptySet()));
+            names.add(name);
+            nextGroupsByMember.put(member, names);
+          }
+          stale.add(name);
+        }
+      }
+    }
+
+    for (EventMutation mutation : mutations) {
+      switch (mutation.getType()) {
+        case ADD:
+          addEvent(mutation.getEvent(), nextEvents, nextIndex, copied);
+          growGroups(mutation.getEvent(), nextGroups, nextGroupsByMember, stale, grown);
+          break;
+        case REMOVE:
+          if (removeEvent(mutation.getEvent(), nextEvents, nextIndex, copied)) {
+            staleGroups(mutation.getEvent(), nextGroupsByMember, stale);
+          }
+          break;
+        case UPDATE:
+          if (removeEvent(mutation.getEvent(), nextEvents, nextIndex, copied)) {
+            staleGroups(mutation.getEvent(), nextGroupsByMember, stale);
+            addEvent(mutation.getReplacement(), nextEvents, nextIndex, copied);
+            growGroups(mutation.getReplacement(), nextGroups, nextGroupsByMember, stale, grown);
+          }
+          break;
+      }
+    }
+
+    for (Map.Entry<String, List<TimeRange>> entry : grown.entrySet()) {
+      if (!stale.contains(entry.getKey())) {
+        MaterializedGroup group = nextGroups.get(entry.getKey());
+        nextGroups.put(entry.getKey(), group.withBusyTimes(entry.getValue()));
+      }
+    }
+    for (String name : stale) {
+      MaterializedGroup group = nextGroups.get(name);
+      List<TimeRange> busyTimes = new ArrayList<>();
+      for (String member : group.getMembers()) {
+        for (Event event : nextIndex.getOrDefault(member, Collections.emptyList())) {
+          busyTimes.add(event.getWhen());
+        }
+      }
+      nextGroups.put(name, group.withBusyTimes(BusyTimes.merge(busyTimes)));
+    }
+
+    return new CalendarSnapshot(
+        version + 1, nextEvents, nextIndex, nextGroups, nextGroupsByMember);
+  }
+
+  private static void growGroups(Event event, Map<String, MaterializedGroup> groups,
+      Map<String, Set<String>> groupsByMember, Set<String> stale,
+      Map<String, List<TimeRange>> grown) {
+    for (String name : groupsOf(event, groupsByMember)) {
+      if (!stale.contains(name)) {
+        List<TimeRange> busyTimes = grown.get(name);
+        if (busyTimes == null) {
+          busyTimes = new ArrayList<>(groups.get(name).getBusyTimes());
+          grown.put(name, busyTimes);
+        }
+        BusyTimes.insert(busyTimes, event.getWhen());
+      }
+    }
+  }
+
+  private static void staleGroups(Event event, Map<String, Set<String>> groupsByMember,
+      Set<String> stale) {
+    stale.addAll(groupsOf(event, groupsByMember));
+  }
+
+  private static Set<String> groupsOf(Event event, Map<String, Set<String>> groupsByMember) {
+    if (groupsByMember.isEmpty()) {
+      return Collections.emptySet();
+    }
+
+    Set<String> names = new HashSet<>();
+    for (String attendee : event.getAttendees()) {
+      names.addAll(groupsByMember.getOrDefault(attendee, Collections.emptySet()));
+    }
+    return names;
+  }
+
+  private static void addEvent(Event event, List<Event> events, Map<String, List<Event>> index,
+      Set<String> copied) {
+    events.add(event);
+    for (String attendee : event.getAttendees()) {
+      writableEntry(attendee, index, copied).add(event);
+    }
+  }
+
+  private static boolean removeEvent(Event event, List<Event> events,
+      Map<String, List<Event>> index, Set<String> copied) {
+    if (!events.remove(event)) {
+      return false;
+    }
+
+    for (String attendee : event.getAttendees()) {
+      List<Event> attended = writableEntry(attendee, index, copied);
+      attended.remove(event);
+      if (attended.isEmpty()) {
+        index.remove(attendee);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the index entry for {@code attendee}, copying it first if it is still shared with the
+   * previous snapshot.
+   */
+  private static List<Event> writableEntry(String attendee, Map<String, List<Event>> index,
+      Set<String> copied) {
+    List<Event> attended = index.get(attendee);
+    if (attended == null) {
+      attended = new ArrayList<>();
+      index.put(attendee, attended);
+      copied.add(attendee);
+    } else if (copied.add(attendee)) {
+      attended = new ArrayList<>(attended);
+      index.put(attendee, attended);
+    }
+    return attended;
+  }
+}
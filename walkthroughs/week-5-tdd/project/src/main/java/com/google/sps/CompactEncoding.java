@@ -0,0 +1,207 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary alternative to the JSON that the servlets return, for callers that ask for
+ * {@link #MEDIA_TYPE}. Every number is an unsigned LEB128 varint, so minutes of the day take at
+ * most two bytes.
+ *
+ * <p>Time ranges are written as a count followed by (start, duration) pairs. Events are written as
+ * a string table holding every title and attendee name once, followed by a count and, for each
+ * event, its title index, start, duration, attendee count and attendee indices.
+ */
+public final class CompactEncoding {
+  public static final String MEDIA_TYPE = "application/x-calendar-compact";
+
+  private CompactEncoding() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns whether an HTTP {@code Accept} header asks for {@link #MEDIA_TYPE}. Wildcards don't
+   * count, so clients that don't know about this encoding keep getting JSON.
+   */
+  public static boolean isAccepted(String accept) {
+    if (accept == null) {
+      return false;
+    }
+    for (String range : accept.split(",")) {
+      String[] parts = range.split(";");
+      if (!parts[0].trim().equalsIgnoreCase(MEDIA_TYPE)) {
+        continue;
+      }
+      boolean refused = false;
+      for (int i = 1; i < parts.length; i++) {
+        String parameter = parts[i].trim().replace(" ", "");
+        refused |= parameter.matches("q=0(\\.0*)?");
+      }
+      if (!refused) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Writes {@code ranges} to {@code out}.
+   */
+  public static void writeTimeRanges(Collection<TimeRange> ranges, OutputStream out)
+      throws IOException {
+    writeVarint(out, ranges.size());
+    for (TimeRange range : ranges) {
+      writeVarint(out, range.start());
+      writeVarint(out, range.duration());
+    }
+  }
+
+  /**
+   * Reads time ranges written by {@link #writeTimeRanges}.
+   */
+  public static List<TimeRange> readTimeRanges(InputStream in) throws IOException {
+    int count = readVarint(in);
+    List<TimeRange> ranges = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int start = readVarint(in);
+      ranges.add(TimeRange.fromStartDuration(start, readVarint(in)));
+    }
+    return ranges;
+  }
+
+  /**
+   * Writes {@code events} to {@code out}.
+   */
+  public static void writeEvents(Collection<Event> events, OutputStream out) throws IOException {
+    Map<String, Integer> indices = new HashMap<>();
+    List<String> strings = new ArrayList<>();
+    for (Event event : events) {
+      intern(event.getTitle(), indices, strings);
+      for (String attendee : event.getAttendees()) {
+        intern(attendee, indices, strings);
+      }
+    }
+
+    writeVarint(out, strings.size());
+    for (String string : strings) {
+      byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+      writeVarint(out, bytes.length);
+      out.write(bytes);
+    }
+
+    writeVarint(out, events.size());
+    for (Event event : events) {
+      writeVarint(out, indices.get(event.getTitle()));
+      writeVarint(out, event.getWhen().start());
+      writeVarint(out, event.getWhen().duration());
+      writeVarint(out, event.getAttendees().size());
+      for (String attendee : event.getAttendees()) {
+        writeVarint(out, indices.get(attendee));
+      }
+    }
+  }
+
+  /**
+   * Reads events written by {@link #writeEvents}.
+   */
+  public static List<Event> readEvents(InputStream in) throws IOException {
+    String[] strings = new String[readVarint(in)];
+    for (int i = 0; i < strings.length; i++) {
+      byte[] bytes = new byte[readVarint(in)];
+      readFully(in, bytes);
+      strings[i] = new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    int count = readVarint(in);
+    List<Event> events = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String title = readString(in, strings);
+      int start = readVarint(in);
+      TimeRange when = TimeRange.fromStartDuration(start, readVarint(in));
+      int attendeeCount = readVarint(in);
+      List<String> attendees = new ArrayList<>(attendeeCount);
+      for (int j = 0; j < attendeeCount; j++) {
+        attendees.add(readString(in, strings));
+      }
+      events.add(new Event(title, when, attendees));
+    }
+    return events;
+  }
+
+  private static void intern(String string, Map<String, Integer> indices, List<String> strings) {
+    if (!indices.containsKey(string)) {
+      indices.put(string, strings.size());
+      strings.add(string);
+    }
+  }
+
+  private static String readString(InputStream in, String[] strings) throws IOException {
+    int index = readVarint(in);
+    if (index >= strings.length) {
+      throw new IOException("String index " + index + " is outside the string table");
+    }
+    return strings[index];
+  }
+
+  static void writeVarint(OutputStream out, int value) throws IOException {
+    if (value < 0) {
+      throw new IllegalArgumentException("value must not be negative: " + value);
+    }
+    while ((value & ~0x7f) != 0) {
+      out.write((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  static int readVarint(InputStream in) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+      int b = in.read();
+      if (b < 0) {
+        throw new EOFException();
+      }
+      value |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        if (value < 0) {
+          throw new IOException("Varint is out of range");
+        }
+        return value;
+      }
+    }
+    throw new IOException("Varint is too long");
+  }
+
+  private static void readFully(InputStream in, byte[] bytes) throws IOException {
+    int read = 0;
+    while (read < bytes.length) {
+      int n = in.read(bytes, read, bytes.length - read);
+      if (n < 0) {
+        throw new EOFException();
+      }
+      read += n;
+    }
+  }
+}
@@ -0,0 +1,319 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A compact, read-only list of merged busy times. Each range is stored as two varints, the gap
+ * since the end of the previous range and the range's duration, so a typical range takes two to
+ * four bytes instead of a {@link TimeRange} object. Every {@link #SKIP_INTERVAL} ranges a skip
+ * pointer records the byte offset and the preceding end, so a search can jump close to any minute
+ * without decoding everything before it.
+ *
+ * <p>Union, intersection and gap finding all stream over the encoded bytes, and union and
+ * intersection write their result straight into a new encoding, so no {@link TimeRange}s are
+ * created along the way.
+ */
+public final class CompressedBusyList {
+  static final int SKIP_INTERVAL = 16;
+
+  public static final CompressedBusyList EMPTY = new Encoder().finish();
+
+  private final byte[] data;
+  private final int size;
+  // For every SKIP_INTERVAL-th range: where it starts in data, and where the range before it ends.
+  private final int[] skipOffsets;
+  private final int[] skipPreviousEnds;
+
+  private CompressedBusyList(byte[] data, int size, int[] skipOffsets, int[] skipPreviousEnds) {
+    this.data = data;
+    this.size = size;
+    this.skipOffsets = skipOffsets;
+    this.skipPreviousEnds = skipPreviousEnds;
+  }
+
+  /**
+   * Returns the compressed form of {@code busyTimes}, which need not be sorted or merged.
+   */
+  public static CompressedBusyList of(Collection<TimeRange> busyTimes) {
+    return ofMerged(BusyTimes.merge(busyTimes));
+  }
+
+  /**
+   * Returns the compressed form of {@code merged}, which must already be sorted by start and
+   * merged.
+   */
+  static CompressedBusyList ofMerged(List<TimeRange> merged) {
+    Encoder encoder = new Encoder();
+    for (TimeRange busy : merged) {
+      encoder.add(busy.start(), busy.end());
+    }
+    return encoder.finish();
+  }
+
+  /**
+   * Returns the number of ranges in the list.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of bytes used by the encoded ranges and skip pointers.
+   */
+  public int byteSize() {
+    return data.length + (skipOffsets.length + skipPreviousEnds.length) * Integer.BYTES;
+  }
+
+  /**
+   * Returns the ranges as a sorted list of {@link TimeRange}s.
+   */
+  public List<TimeRange> toList() {
+    List<TimeRange> ranges = new ArrayList<>(size);
+    for (Cursor cursor = new Cursor(this); cursor.next();) {
+      ranges.add(TimeRange.fromStartEnd(cursor.start, cursor.end, false));
+    }
+    return ranges;
+  }
+
+  /**
+   * Returns whether any range overlaps the minutes from {@code start} to {@code end} (exclusive).
+   * Only the block of {@link #SKIP_INTERVAL} ranges around {@code start} is decoded.
+   */
+  public boolean overlapsAny(int start, int end) {
+    Cursor cursor = new Cursor(this);
+    cursor.seek(start);
+    while (cursor.next()) {
+      if (cursor.end > start) {
+        return cursor.start < end;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the times that are busy in this list or in {@code other}.
+   */
+  public CompressedBusyList union(CompressedBusyList other) {
+    Cursor a = new Cursor(this);
+    Cursor b = new Cursor(other);
+    boolean hasA = a.next();
+    boolean hasB = b.next();
+    Encoder encoder = new Encoder();
+    int start = -1;
+    int end = -1;
+    while (hasA || hasB) {
+      Cursor first = !hasB || (hasA && a.start <= b.start) ? a : b;
+      if (start >= 0 && first.start < end) {
+        end = Math.max(end, first.end);
+      } else {
+        if (start >= 0) {
+          encoder.add(start, end);
+        }
+        start = first.start;
+        end = first.end;
+      }
+      if (first == a) {
+        hasA = a.next();
+      } else {
+        hasB = b.next();
+      }
+    }
+    if (start >= 0) {
+      encoder.add(start, end);
+    }
+    return encoder.finish();
+  }
+
+  /**
+   * Returns the union of all of {@code lists}, combining them pairwise so every range is
+   * re-encoded only a logarithmic number of times.
+   */
+  public static CompressedBusyList unionAll(Collection<CompressedBusyList> lists) {
+    List<CompressedBusyList> level = new ArrayList<>(lists);
+    if (level.isEmpty()) {
+      return EMPTY;
+    }
+    while (level.size() > 1) {
+      List<CompressedBusyList> next = new ArrayList<>((level.size() + 1) / 2);
+      for (int i = 0; i + 1 < level.size(); i += 2) {
+        next.add(level.get(i).union(level.get(i + 1)));
+      }
+      if (level.size() % 2 == 1) {
+        next.add(level.get(level.size() - 1));
+      }
+      level = next;
+    }
+    return level.get(0);
+  }
+
+  /**
+   * Returns the times that are busy in both this list and {@code other}.
+   */
+  public CompressedBusyList intersect(CompressedBusyList other) {
+    Cursor a = new Cursor(this);
+    Cursor b = new Cursor(other);
+    Encoder encoder = new Encoder();
+    if (a.next() && b.next()) {
+      while (true) {
+        int start = Math.max(a.start, b.start);
+        int end = Math.min(a.end, b.end);
+        if (start < end) {
+          encoder.add(start, end);
+        }
+        // Drop whichever range ends first; the other may still overlap the next one.
+        boolean more = a.end <= b.end ? a.next() : b.next();
+        if (!more) {
+          break;
+        }
+      }
+    }
+    return encoder.finish();
+  }
+
+  /**
+   * Returns the free slots of at least {@code duration} minutes between the ranges, following the
+   * same rules as {@link FindMeetingQuery}.
+   */
+  public Collection<TimeRange> gaps(long duration) {
+    Collection<TimeRange> availableTimes = new ArrayList<>();
+    int previousEnd = TimeRange.START_OF_DAY;
+    for (Cursor cursor = new Cursor(this); cursor.next();) {
+      FreeSlots.addIfLongEnough(previousEnd, cursor.start, duration, availableTimes);
+      previousEnd = cursor.end;
+    }
+    FreeSlots.addIfLongEnough(previousEnd, TimeRange.WHOLE_DAY.end(), duration, availableTimes);
+    return availableTimes;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof CompressedBusyList
+        && Arrays.equals(data, ((CompressedBusyList) other).data);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(data);
+  }
+
+  @Override
+  public String toString() {
+    return toList().toString();
+  }
+
+  /** Decodes the ranges of a list one at a time. */
+  private static final class Cursor {
+    private final CompressedBusyList list;
+    private int offset;
+    private int index;
+    private int start;
+    private int end;
+
+    private Cursor(CompressedBusyList list) {
+      this.list = list;
+    }
+
+    /**
+     * Positions the cursor so that the following calls to {@link #next()} return every range that
+     * ends after {@code minute}, possibly preceded by a few that don't.
+     */
+    private void seek(int minute) {
+      // The last block that begins at or before minute; ranges in earlier blocks all end before it.
+      int block = Arrays.binarySearch(list.skipPreviousEnds, minute);
+      block = block >= 0 ? block : Math.max(0, -block - 2);
+      if (block < list.skipOffsets.length) {
+        offset = list.skipOffsets[block];
+        index = block * SKIP_INTERVAL;
+        end = list.skipPreviousEnds[block];
+      }
+    }
+
+    /**
+     * Decodes the next range into {@code start} and {@code end}. Returns false at the end.
+     */
+    private boolean next() {
+      if (index == list.size) {
+        return false;
+      }
+      start = end + readVarint();
+      end = start + readVarint();
+      index++;
+      return true;
+    }
+
+    private int readVarint() {
+      int value = 0;
+      int shift = 0;
+      byte current;
+      do {
+        current = list.data[offset++];
+        value |= (current & 0x7F) << shift;
+        shift += 7;
+      } while (current < 0);
+      return value;
+    }
+  }
+
+  /** Builds a list from ranges added in order. */
+  private static final class Encoder {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final List<Integer> skipOffsets = new ArrayList<>();
+    private final List<Integer> skipPreviousEnds = new ArrayList<>();
+    private int size;
+    private int previousEnd;
+
+    /**
+     * Adds the range from {@code start} to {@code end}, which must not start before the previous
+     * range ends.
+     */
+    private void add(int start, int end) {
+      if (size % SKIP_INTERVAL == 0) {
+        skipOffsets.add(bytes.size());
+        skipPreviousEnds.add(previousEnd);
+      }
+      writeVarint(start - previousEnd);
+      writeVarint(end - start);
+      previousEnd = end;
+      size++;
+    }
+
+    private void writeVarint(int value) {
+      while ((value & ~0x7F) != 0) {
+        bytes.write((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      bytes.write(value);
+    }
+
+    private CompressedBusyList finish() {
+      return new CompressedBusyList(
+          bytes.toByteArray(), size, toArray(skipOffsets), toArray(skipPreviousEnds));
+    }
+
+    private static int[] toArray(List<Integer> values) {
+      int[] array = new int[values.size()];
+      for (int i = 0; i < array.length; i++) {
+        array[i] = values.get(i);
+      }
+      return array;
+    }
+  }
+}
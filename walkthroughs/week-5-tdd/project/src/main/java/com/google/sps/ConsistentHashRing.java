@@ -0,0 +1,64 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maps keys to nodes with consistent hashing. Each node is placed on a 32-bit ring at many
+ * pseudo-random points, and a key belongs to the node at the first point at or after the key's
+ * hash. Adding a node then only moves the keys that land on its points.
+ */
+final class ConsistentHashRing {
+  // Points per node; more points spread keys more evenly.
+  static final int POINTS_PER_NODE = 128;
+
+  private final TreeMap<Integer, Integer> ring = new TreeMap<>();
+
+  ConsistentHashRing(int nodes) {
+    if (nodes <= 0) {
+      throw new IllegalArgumentException("nodes must be positive");
+    }
+
+    for (int node = 0; node < nodes; node++) {
+      for (int point = 0; point < POINTS_PER_NODE; point++) {
+        ring.put(hash("node-" + node + "#" + point), node);
+      }
+    }
+  }
+
+  /**
+   * Returns the node that owns {@code key}.
+   */
+  int nodeFor(String key) {
+    Map.Entry<Integer, Integer> entry = ring.ceilingEntry(hash(key));
+    return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+  }
+
+  /**
+   * Returns a well-mixed hash of {@code key}: String.hashCode followed by the MurmurHash3
+   * finalizer, since nearby strings have nearby hash codes.
+   */
+  private static int hash(String key) {
+    int hash = key.hashCode();
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    hash ^= hash >>> 16;
+    return hash;
+  }
+}
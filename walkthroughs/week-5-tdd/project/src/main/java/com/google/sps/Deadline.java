@@ -0,0 +1,79 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A point in time after which a query should stop and return what it has. Queries poll
+ * {@link #expired()} from their loops; once it has returned {@code true}, {@link #wasReached()}
+ * reports that the query's answer may be partial. Each query uses its own deadline, from one
+ * thread.
+ */
+final class Deadline {
+  /** A deadline that never expires. */
+  static final Deadline NONE = new Deadline(false, 0, System::nanoTime);
+
+  private final boolean bounded;
+  private final long deadlineNanos;
+  private final LongSupplier nanoClock;
+  private boolean reached;
+
+  private Deadline(boolean bounded, long deadlineNanos, LongSupplier nanoClock) {
+    this.bounded = bounded;
+    this.deadlineNanos = deadlineNanos;
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Returns a deadline {@code budgetMillis} from now, or {@link #NONE} if the budget isn't
+   * positive.
+   */
+  static Deadline after(long budgetMillis) {
+    return after(budgetMillis, System::nanoTime);
+  }
+
+  /**
+   * Returns a deadline {@code budgetMillis} from now according to {@code nanoClock}, which must
+   * tick like {@link System#nanoTime()}, or {@link #NONE} if the budget isn't positive.
+   */
+  static Deadline after(long budgetMillis, LongSupplier nanoClock) {
+    if (budgetMillis <= 0) {
+      return NONE;
+    }
+    return new Deadline(true, nanoClock.getAsLong() + budgetMillis * 1_000_000, nanoClock);
+  }
+
+  /**
+   * Returns whether the deadline has passed. Once it has, this keeps returning {@code true}
+   * without looking at the clock again.
+   */
+  boolean expired() {
+    if (!bounded) {
+      return false;
+    }
+    if (!reached && nanoClock.getAsLong() - deadlineNanos >= 0) {
+      reached = true;
+    }
+    return reached;
+  }
+
+  /**
+   * Returns whether {@link #expired()} has ever returned {@code true}.
+   */
+  boolean wasReached() {
+    return reached;
+  }
+}
@@ -0,0 +1,145 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Mailing-list style attendees whose members can be people or other lists. The transitive
+ * membership of every list is cached and only recomputed for the lists affected by a change.
+ * Every list is also kept as a {@link MaterializedGroup} of the same name in the calendar, so a
+ * request that names a list uses the list's precomputed busy times instead of expanding it.
+ *
+ * <p>All methods are thread-safe.
+ */
+public final class DistributionLists {
+  private final EventCalendar calendar;
+  // The members of each list exactly as they were given, including nested lists.
+  private final Map<String, Set<String>> directMembers = new HashMap<>();
+  // The people (never lists) each list expands to.
+  private final Map<String, Set<String>> expanded = new HashMap<>();
+
+  /**
+   * Creates an empty set of lists whose busy times are kept in {@code calendar}.
+   */
+  public DistributionLists(EventCalendar calendar) {
+    this.calendar = calendar;
+  }
+
+  /**
+   * Returns whether {@code name} is a distribution list.
+   */
+  public synchronized boolean isList(String name) {
+    return directMembers.containsKey(name);
+  }
+
+  /**
+   * Returns a read-only set of every person in {@code list}, including the members of nested
+   * lists. Returns an empty set if {@code list} is not a list.
+   */
+  public synchronized Set<String> expand(String list) {
+    Set<String> people = expanded.get(list);
+    return people == null ? Collections.emptySet() : Collections.unmodifiableSet(people);
+  }
+
+  /**
+   * Sets the members of {@code list}, creating it if needed. Members can be people or other lists.
+   * The returned future completes once the calendar's busy times reflect the change.
+   */
+  public synchronized CompletableFuture<Void> setMembers(String list, Collection<String> members) {
+    Set<String> affected = listsContaining(list);
+    directMembers.put(list, new HashSet<>(members));
+    return refresh(affected);
+  }
+
+  /**
+   * Deletes {@code list}. Lists that contained it keep the name as an ordinary member, which no
+   * longer matches anyone. The returned future completes once the calendar reflects the change.
+   */
+  public synchronized CompletableFuture<Void> removeList(String list) {
+    Set<String> affected = listsContaining(list);
+    directMembers.remove(list);
+    return refresh(affected);
+  }
+
+  /**
+   * Returns {@code list} and every list that contains it, directly or through other lists.
+   */
+  private Set<String> listsContaining(String list) {
+    Set<String> containing = new HashSet<>();
+    Deque<String> toVisit = new ArrayDeque<>();
+    toVisit.add(list);
+    while (!toVisit.isEmpty()) {
+      String current = toVisit.remove();
+      if (containing.add(current)) {
+        for (Map.Entry<String, Set<String>> entry : directMembers.entrySet()) {
+          if (entry.getValue().contains(current)) {
+            toVisit.add(entry.getKey());
+          }
+        }
+      }
+    }
+    return containing;
+  }
+
+  /**
+   * Recomputes the expansion of each of {@code lists} and pushes it to the calendar.
+   */
+  private CompletableFuture<Void> refresh(Set<String> lists) {
+    List<CompletableFuture<CalendarSnapshot>> updates = new ArrayList<>();
+    for (String list : lists) {
+      if (directMembers.containsKey(list)) {
+        Set<String> people = computeExpansion(list);
+        expanded.put(list, people);
+        updates.add(calendar.defineGroup(list, people));
+      } else if (expanded.remove(list) != null) {
+        updates.add(calendar.removeGroup(list));
+      }
+    }
+    return CompletableFuture.allOf(updates.toArray(new CompletableFuture<?>[0]));
+  }
+
+  private Set<String> computeExpansion(String list) {
+    Set<String> people = new HashSet<>();
+    Set<String> visitedLists = new HashSet<>();
+    Deque<String> toVisit = new ArrayDeque<>();
+    toVisit.add(list);
+    while (!toVisit.isEmpty()) {
+      String current = toVisit.remove();
+      // Guard against lists that (indirectly) contain themselves.
+      if (!visitedLists.add(current)) {
+        continue;
+      }
+      for (String member : directMembers.get(current)) {
+        if (directMembers.containsKey(member)) {
+          toVisit.add(member);
+        } else {
+          people.add(member);
+        }
+      }
+    }
+    return people;
+  }
+}
@@ -0,0 +1,269 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Holds the calendar as a series of immutable {@link CalendarSnapshot}s. Readers call
+ * {@link #snapshot()} and never block: the current snapshot is published through a single volatile
+ * reference. Writers submit mutations which are queued, batched and applied by one writer thread,
+ * which then publishes the next snapshot.
+ *
+ * <p>A calendar can optionally be backed by an {@link EventJournal}. Each batch is then journaled
+ * before its snapshot is published, so a write is durable once its future completes. Compacting
+ * the journal happens after the futures complete, and a failure to compact only delays it.
+ */
+public final class EventCalendar implements AutoCloseable {
+  private static final Logger logger = Logger.getLogger(EventCalendar.class.getName());
+
+  // The most mutations the writer thread folds into a single snapshot.
+  private static final int MAX_BATCH_SIZE = 512;
+
+  // Queued by close() to stop the writer thread. Interrupting the writer instead could close the
+  // journal's FileChannel in the middle of a write.
+  private static final PendingWrite SHUTDOWN =
+      new PendingWrite(Collections.emptyList(), Collections.emptyMap());
+
+  private final BlockingQueue<PendingWrite> pending = new LinkedBlockingQueue<>();
+  private final Thread writer;
+  private final EventJournal journal;
+  private volatile CalendarSnapshot snapshot;
+  private volatile boolean closed;
+
+  /**
+   * Creates an empty calendar.
+   */
+  public EventCalendar() {
+    this(Collections.emptyList());
+  }
+
+  /**
+   * Creates a calendar that initially contains {@code events}.
+   */
+  public EventCalendar(Collection<Event> events) {
+    this(events, null);
+  }
+
+  /**
+   * Creates a calendar recovered from {@code journal}. Every later write is journaled, and the
+   * journal is compacted into a snapshot whenever it grows long enough. The calendar does not
+   * close the journal.
+   */
+  public EventCalendar(EventJournal journal) throws IOException {
+    this(journal.recover(), journal);
+  }
+
+  private EventCalendar(Collection<Event> events, EventJournal journal) {
+    this.journal = journal;
+
+    List<EventMutation> initial = new ArrayList<>();
+    for (Event event : events) {
+      initial.add(EventMutation.add(event));
+    }
+    this.snapshot = CalendarSnapshot.EMPTY.apply(initial);
+
+    this.writer = new Thread(this::runWriter, "event-calendar-writer");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  /**
+   * Returns the most recently published snapshot. This never blocks.
+   */
+  public CalendarSnapshot snapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Queues {@code event} to be added. See {@link #submit(Collection)}.
+   */
+  public CompletableFuture<CalendarSnapshot> add(Event event) {
+    return submit(Arrays.asList(EventMutation.add(event)));
+  }
+
+  /**
+   * Queues one event equal to {@code event} to be removed. See {@link #submit(Collection)}.
+   */
+  public CompletableFuture<CalendarSnapshot> remove(Event event) {
+    return submit(Arrays.asList(EventMutation.remove(event)));
+  }
+
+  /**
+   * Queues {@code event} to be replaced with {@code replacement}. See {@link #submit(Collection)}.
+   */
+  public CompletableFuture<CalendarSnapshot> update(Event event, Event replacement) {
+    return submit(Arrays.asList(EventMutation.update(event, replacement)));
+  }
+
+  /**
+   * Queues the definition of a {@link MaterializedGroup} called {@code name}, replacing any
+   * existing group with that name. Group definitions are not journaled; define groups again after
+   * recovering a calendar.
+   */
+  public CompletableFuture<CalendarSnapshot> defineGroup(String name, Collection<String> members) {
+    return submitGroupChange(name, new ArrayList<>(members));
+  }
+
+  /**
+   * Queues the removal of the group called {@code name}.
+   */
+  public CompletableFuture<CalendarSnapshot> removeGroup(String name) {
+    return submitGroupChange(name, null);
+  }
+
+  /**
+   * Queues {@code mutations} to be applied by the writer thread. All of them become visible to
+   * readers in the same snapshot. The returned future completes with the first snapshot that
+   * contains them.
+   */
+  public CompletableFuture<CalendarSnapshot> submit(Collection<EventMutation> mutations) {
+    if (closed) {
+      throw new IllegalStateException("calendar is closed");
+    }
+
+    return enqueue(new PendingWrite(new ArrayList<>(mutations), Collections.emptyMap()));
+  }
+
+  private CompletableFuture<CalendarSnapshot> submitGroupChange(
+      String name, Collection<String> members) {
+    if (closed) {
+      throw new IllegalStateException("calendar is closed");
+    }
+
+    return enqueue(new PendingWrite(
+        Collections.emptyList(), Collections.singletonMap(name, members)));
+  }
+
+  private CompletableFuture<CalendarSnapshot> enqueue(PendingWrite write) {
+    pending.add(write);
+    if (closed) {
+      // The calendar was closed while we were queueing, so the writer may never see this write.
+      failPending();
+    }
+    return write.done;
+  }
+
+  /**
+   * Stops the writer thread. Writes that have not been applied yet fail with an
+   * {@link IllegalStateException}.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    pending.add(SHUTDOWN);
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    failPending();
+  }
+
+  private void runWriter() {
+    List<PendingWrite> batch = new ArrayList<>();
+    List<EventMutation> mutations = new ArrayList<>();
+    Map<String, Collection<String>> groupChanges = new HashMap<>();
+    boolean running = true;
+    while (running) {
+      try {
+        batch.add(pending.take());
+      } catch (InterruptedException e) {
+        break;
+      }
+      pending.drainTo(batch, MAX_BATCH_SIZE - 1);
+      running = !batch.remove(SHUTDOWN);
+
+      for (PendingWrite write : batch) {
+        mutations.addAll(write.mutations);
+        groupChanges.putAll(write.groupChanges);
+      }
+
+      try {
+        CalendarSnapshot next = snapshot.apply(mutations, groupChanges);
+        if (journal != null && !mutations.isEmpty()) {
+          journal.append(mutations);
+        }
+        snapshot = next;
+        for (PendingWrite write : batch) {
+          write.done.complete(next);
+        }
+      } catch (IOException e) {
+        for (PendingWrite write : batch) {
+          write.done.completeExceptionally(new UncheckedIOException(e));
+        }
+      } catch (RuntimeException e) {
+        for (PendingWrite write : batch) {
+          write.done.completeExceptionally(e);
+        }
+      }
+
+      batch.clear();
+      mutations.clear();
+      groupChanges.clear();
+      compactJournal();
+    }
+  }
+
+  /**
+   * Compacts the journal into a snapshot of the published calendar if it has grown long enough.
+   * The batches in the journal are already durable, so a failure here doesn't fail any write; the
+   * journal keeps growing and compaction is tried again after the next batch.
+   */
+  private void compactJournal() {
+    if (journal == null || !journal.shouldSnapshot()) {
+      return;
+    }
+    try {
+      journal.writeSnapshot(snapshot.getEvents());
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.WARNING, "Could not compact the event journal, will retry", e);
+    }
+  }
+
+  private void failPending() {
+    List<PendingWrite> remaining = new ArrayList<>();
+    pending.drainTo(remaining);
+    for (PendingWrite write : remaining) {
+      write.done.completeExceptionally(new IllegalStateException("calendar is closed"));
+    }
+  }
+
+  /** Changes waiting for the writer thread, and the future to complete after. */
+  private static final class PendingWrite {
+    private final List<EventMutation> mutations;
+    private final Map<String, Collection<String>> groupChanges;
+    private final CompletableFuture<CalendarSnapshot> done = new CompletableFuture<>();
+
+    private PendingWrite(List<EventMutation> mutations,
+        Map<String, Collection<String>> groupChanges) {
+      this.mutations = mutations;
+      this.groupChanges = groupChanges;
+    }
+  }
+}
@@ -0,0 +1,360 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A durable, append-only log of calendar mutations plus periodic compacted snapshots, kept in one
+ * directory. Each batch of mutations is written and fsynced together (group commit), so a batch is
+ * only forced to disk once no matter how many mutations it holds. Recovery loads the latest
+ * snapshot and replays the journal written after it, so startup time depends on the size of the
+ * calendar rather than on its whole history.
+ */
+public final class EventJournal implements AutoCloseable {
+  static final String JOURNAL_FILE = "events.journal";
+  static final String SNAPSHOT_FILE = "events.snapshot";
+
+  // How many journaled mutations to allow before suggesting a new snapshot.
+  private static final int DEFAULT_SNAPSHOT_INTERVAL = 10_000;
+
+  // Each journal record is: payload length, CRC32 of the payload, payload.
+  private static final int RECORD_HEADER_BYTES = Integer.BYTES + Integer.BYTES;
+
+  private static final int SNAPSHOT_MAGIC = 0x53505345;
+
+  private final Path directory;
+  private final int snapshotInterval;
+  private final Storage storage;
+  private final FileChannel journal;
+  private boolean recovered;
+  private int mutationsSinceSnapshot;
+  // Every journal record has a sequence number, and a snapshot remembers the last one it includes.
+  // That way a crash between writing a snapshot and emptying the journal never replays a record
+  // twice.
+  private long nextSequence = 1;
+  // Set when a failed append could not be rolled back, so the journal may end in a torn record.
+  // Recovery stops at a torn record, so appending after one would lose every later record.
+  private IOException failure;
+
+  /**
+   * Opens (or creates) the journal in {@code directory}.
+   */
+  public EventJournal(Path directory) throws IOException {
+    this(directory, DEFAULT_SNAPSHOT_INTERVAL);
+  }
+
+  /**
+   * Opens (or creates) the journal in {@code directory}, suggesting a snapshot every
+   * {@code snapshotInterval} mutations.
+   */
+  public EventJournal(Path directory, int snapshotInterval) throws IOException {
+    this(directory, snapshotInterval, Storage.FILES);
+  }
+
+  EventJournal(Path directory, int snapshotInterval, Storage storage) throws IOException {
+    if (snapshotInterval <= 0) {
+      throw new IllegalArgumentException("snapshotInterval must be positive");
+    }
+
+    Files.createDirectories(directory);
+    this.directory = directory;
+    this.snapshotInterval = snapshotInterval;
+    this.storage = storage;
+    this.journal = storage.openJournal(directory.resolve(JOURNAL_FILE));
+    this.journal.position(journal.size());
+  }
+
+  /**
+   * Rebuilds the calendar from the latest snapshot and the journal tail written after it. A
+   * partially written record at the end of the journal (from a crash mid-write) is discarded and
+   * the journal is truncated back to the last complete record. This must be called before the
+   * first {@link #append} or {@link #writeSnapshot}, which otherwise throw
+   * {@link IllegalStateException}.
+   *
+   * @return the events that were in the calendar when it was last journaled
+   */
+  public List<Event> recover() throws IOException {
+    List<EventMutation> mutations = new ArrayList<>();
+    long snapshotSequence = 0;
+    Path snapshotPath = directory.resolve(SNAPSHOT_FILE);
+    if (Files.exists(snapshotPath)) {
+      try (InputStream file = Files.newInputStream(snapshotPath)) {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(file));
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+          throw new IOException("Not a calendar snapshot: " + snapshotPath);
+        }
+        snapshotSequence = in.readLong();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+          mutations.add(EventMutation.add(readEvent(in)));
+        }
+      }
+    }
+    nextSequence = snapshotSequence + 1;
+
+    journal.position(0);
+    DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Channels.newInputStream(journal)));
+    long validLength = 0;
+    int replayed = 0;
+    while (true) {
+      byte[] payload = readRecord(in, journal.size() - validLength - RECORD_HEADER_BYTES);
+      if (payload == null) {
+        break;
+      }
+      DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+      long sequence = record.readLong();
+      if (sequence > snapshotSequence) {
+        mutations.add(readMutation(record));
+        nextSequence = sequence + 1;
+        replayed++;
+      }
+      validLength += RECORD_HEADER_BYTES + payload.length;
+    }
+
+    if (validLength < journal.size()) {
+      journal.truncate(validLength);
+      journal.force(true);
+    }
+    journal.position(validLength);
+    mutationsSinceSnapshot = replayed;
+    recovered = true;
+
+    return CalendarSnapshot.EMPTY.apply(mutations).getEvents();
+  }
+
+  /**
+   * Appends {@code mutations} to the journal and forces them to disk with a single fsync. If this
+   * throws, none of {@code mutations} are journaled: whatever was written is truncated away. If
+   * even that fails, the journal refuses every later append, since records written after a torn
+   * one could never be recovered.
+   */
+  public void append(Collection<EventMutation> mutations) throws IOException {
+    checkRecovered();
+    if (failure != null) {
+      throw new IOException("journal failed and no longer accepts appends", failure);
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+    DataOutputStream payload = new DataOutputStream(payloadBytes);
+    CRC32 crc = new CRC32();
+    long sequence = nextSequence;
+    for (EventMutation mutation : mutations) {
+      payloadBytes.reset();
+      payload.writeLong(sequence++);
+      writeMutation(payload, mutation);
+      crc.reset();
+      crc.update(payloadBytes.toByteArray());
+      out.writeInt(payloadBytes.size());
+      out.writeInt((int) crc.getValue());
+      payloadBytes.writeTo(out);
+    }
+    out.flush();
+
+    long start = journal.position();
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+      while (buffer.hasRemaining()) {
+        journal.write(buffer);
+      }
+      journal.force(false);
+    } catch (IOException e) {
+      rollBack(start, e);
+      throw e;
+    }
+    nextSequence = sequence;
+    mutationsSinceSnapshot += mutations.size();
+  }
+
+  /**
+   * Truncates the journal back to {@code length} after an append failed with {@code cause}, or
+   * marks the journal failed if that isn't possible.
+   */
+  private void rollBack(long length, IOException cause) {
+    try {
+      journal.truncate(length);
+      journal.position(length);
+      journal.force(false);
+    } catch (IOException e) {
+      cause.addSuppressed(e);
+      failure = cause;
+    }
+  }
+
+  /**
+   * Returns whether a new snapshot should be written: enough mutations have been journaled since
+   * the last one, or an append failed in a way that only a snapshot can repair.
+   */
+  public boolean shouldSnapshot() {
+    return failure != null || mutationsSinceSnapshot >= snapshotInterval;
+  }
+
+  /**
+   * Writes {@code events} as the new snapshot and empties the journal. The snapshot is written to
+   * a temporary file and atomically moved into place, so a crash leaves either the old snapshot and
+   * full journal or the new snapshot. The journal is only emptied once the move itself is durable.
+   */
+  public void writeSnapshot(Collection<Event> events) throws IOException {
+    checkRecovered();
+    Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+             StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Channels.newOutputStream(channel)));
+      out.writeInt(SNAPSHOT_MAGIC);
+      out.writeLong(nextSequence - 1);
+      out.writeInt(events.size());
+      for (Event event : events) {
+        writeEvent(out, event);
+      }
+      out.flush();
+      channel.force(true);
+    }
+    Files.move(temporary, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    // Until the directory entry is forced, a crash could bring back the old snapshot, and with an
+    // empty journal every write since it would be lost.
+    storage.syncDirectory(directory);
+
+    journal.truncate(0);
+    journal.position(0);
+    journal.force(true);
+    mutationsSinceSnapshot = 0;
+    // The snapshot holds everything the journal did, torn tail or not.
+    failure = null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    journal.close();
+  }
+
+  private void checkRecovered() {
+    if (!recovered) {
+      throw new IllegalStateException("recover() must be called first");
+    }
+  }
+
+  /**
+   * Returns the next complete record's payload, or {@code null} at the end of the journal or at a
+   * torn or corrupt record.
+   */
+  private static byte[] readRecord(DataInputStream in, long maxLength) throws IOException {
+    try {
+      int length = in.readInt();
+      int checksum = in.readInt();
+      if (length < 0 || length > maxLength) {
+        return null;
+      }
+      byte[] payload = new byte[length];
+      in.readFully(payload);
+
+      CRC32 crc = new CRC32();
+      crc.update(payload);
+      return (int) crc.getValue() == checksum ? payload : null;
+    } catch (EOFException e) {
+      return null;
+    }
+  }
+
+  private static void writeMutation(DataOutputStream out, EventMutation mutation)
+      throws IOException {
+    out.writeByte(mutation.getType().ordinal());
+    writeEvent(out, mutation.getEvent());
+    if (mutation.getType() == EventMutation.Type.UPDATE) {
+      writeEvent(out, mutation.getReplacement());
+    }
+  }
+
+  private static EventMutation readMutation(DataInputStream in) throws IOException {
+    EventMutation.Type type = EventMutation.Type.values()[in.readByte()];
+    Event event = readEvent(in);
+    switch (type) {
+      case ADD:
+        return EventMutation.add(event);
+      case REMOVE:
+        return EventMutation.remove(event);
+      default:
+        return EventMutation.update(event, readEvent(in));
+    }
+  }
+
+  private static void writeEvent(DataOutputStream out, Event event) throws IOException {
+    out.writeUTF(event.getTitle());
+    out.writeInt(event.getWhen().start());
+    out.writeInt(event.getWhen().duration());
+    out.writeInt(event.getAttendees().size());
+    for (String attendee : event.getAttendees()) {
+      out.writeUTF(attendee);
+    }
+  }
+
+  private static Event readEvent(DataInputStream in) throws IOException {
+    String title = in.readUTF();
+    TimeRange when = TimeRange.fromStartDuration(in.readInt(), in.readInt());
+    int attendeeCount = in.readInt();
+    List<String> attendees = new ArrayList<>(attendeeCount);
+    for (int i = 0; i < attendeeCount; i++) {
+      attendees.add(in.readUTF());
+    }
+    return new Event(title, when, attendees);
+  }
+
+  /** The file system operations the journal relies on for durability. */
+  interface Storage {
+    Storage FILES = new Storage() {
+      @Override
+      public FileChannel openJournal(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+      }
+
+      @Override
+      public void syncDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+          channel.force(true);
+        }
+      }
+    };
+
+    /** Opens the journal file for reading and writing, creating it if needed. */
+    FileChannel openJournal(Path file) throws IOException;
+
+    /** Forces the entries of {@code directory}, such as renamed files, to disk. */
+    void syncDirectory(Path directory) throws IOException;
+  }
+}
@@ -0,0 +1,88 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * A single change to the calendar: an event being added, removed or replaced by another event.
+ * Mutations are considered read-only.
+ */
+public final class EventMutation {
+  /** The kind of change a mutation makes. */
+  public enum Type {
+    ADD,
+    REMOVE,
+    UPDATE
+  }
+
+  private final Type type;
+  private final Event event;
+  private final Event replacement;
+
+  private EventMutation(Type type, Event event, Event replacement) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+
+    if (type == Type.UPDATE && replacement == null) {
+      throw new IllegalArgumentException("replacement cannot be null for an update");
+    }
+
+    this.type = type;
+    this.event = event;
+    this.replacement = replacement;
+  }
+
+  /**
+   * Creates a mutation that adds {@code event} to the calendar.
+   */
+  public static EventMutation add(Event event) {
+    return new EventMutation(Type.ADD, event, null);
+  }
+
+  /**
+   * Creates a mutation that removes one event equal to {@code event} from the calendar.
+   */
+  public static EventMutation remove(Event event) {
+    return new EventMutation(Type.REMOVE, event, null);
+  }
+
+  /**
+   * Creates a mutation that replaces one event equal to {@code event} with {@code replacement}.
+   */
+  public static EventMutation update(Event event, Event replacement) {
+    return new EventMutation(Type.UPDATE, event, replacement);
+  }
+
+  /**
+   * Returns the kind of change this mutation makes.
+   */
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Returns the event being added, removed or replaced.
+   */
+  public Event getEvent() {
+    return event;
+  }
+
+  /**
+   * Returns the new event for an update, or {@code null} for other mutation types.
+   */
+  public Event getReplacement() {
+    return replacement;
+  }
+}
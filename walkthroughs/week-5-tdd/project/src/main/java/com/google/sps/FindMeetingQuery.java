@@ -16,13 +16,41 @@ package com.google.sps;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public final class FindMeetingQuery {
+  // Loops with a deadline look at the clock once every this many steps, plus one. The first check
+  // comes only after that many steps, so even a query whose budget has already run out looks at
+  // some events rather than answering from none.
+  private static final int DEADLINE_CHECK_MASK = 63;
+
+  private final QueryPlanner planner;
+
+  /**
+   * Creates a query that uses the shared default {@link QueryPlanner}.
+   */
+  public FindMeetingQuery() {
+    this(QueryPlanner.getDefault());
+  }
+
+  /**
+   * Creates a query that uses {@code planner} to choose how to compute available times.
+   */
+  public FindMeetingQuery(QueryPlanner planner) {
+    this.planner = planner;
+  }
+
   /*
    * Returns available slots for a meeting. If one or more time slots exist so that both mandatory
    * and optional attendees can attend, returns those time slots. Otherwise, returns the time slots
@@ -32,99 +60,518 @@ public final class FindMeetingQuery {
    * @param request {@link MeetingRequest} object with the request details
    */
   public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    return query(request, Deadline.NONE,
+        attendees -> getAvailableTimes(events, attendees, request.getDuration(), Deadline.NONE));
+  }
+
+  /*
+   * Returns available slots for a meeting on {@code day}, with the same rules as
+   * {@link #query(Collection, MeetingRequest)}. Recurring events are expanded lazily: only the
+   * series that occur on {@code day} contribute an occurrence, and no per-day instances are
+   * created.
+   *
+   * @param events The one-off events on {@code day}
+   * @param schedule The recurring events in the calendar
+   * @param day The day to find slots on
+   * @param request {@link MeetingRequest} object with the request details
+   */
+  public Collection<TimeRange> query(Collection<Event> events, RecurringSchedule schedule,
+      int day, MeetingRequest request) {
+    return query(schedule.eventsOn(day, events), request);
+  }
+
+  /*
+   * Returns available slots for a meeting using a calendar snapshot, with the same rules as
+   * {@link #query(Collection, MeetingRequest)}. Only the events of the requested attendees are
+   * looked at, using the snapshot's attendee index. Any {@link MaterializedGroup} that is requested
+   * by name, or whose members are all requested, contributes its precomputed busy times instead of
+   * its members' events.
+   *
+   * @param snapshot A consistent view of the calendar
+   * @param request {@link MeetingRequest} object with the request details
+   */
+  public Collection<TimeRange> query(CalendarSnapshot snapshot, MeetingRequest request) {
+    return query(request, Deadline.NONE,
+        attendees -> getAvailableTimes(snapshot, attendees, request.getDuration(), Deadline.NONE));
+  }
+
+  /*
+   * Returns available slots for a meeting like {@link #query(Collection, MeetingRequest)}, but
+   * gives up looking at events once the request's time budget runs out. The slots found by then are
+   * returned and the result is marked partial; see {@link QueryResult#getTimes()} for what that
+   * means. Requests without a budget are never partial.
+   *
+   * @param events All existing events in the calendar
+   * @param request {@link MeetingRequest} object with the request details
+   */
+  public QueryResult queryWithinBudget(Collection<Event> events, MeetingRequest request) {
+    return queryWithinBudget(events, request, Deadline.after(request.getTimeBudgetMillis()));
+  }
+
+  /**
+   * Like {@link #queryWithinBudget(Collection, MeetingRequest)}, but stops at {@code deadline}
+   * instead of the request's own time budget.
+   */
+  QueryResult queryWithinBudget(Collection<Event> events, MeetingRequest request,
+      Deadline deadline) {
+    Collection<TimeRange> times = query(request, deadline,
+        attendees -> getAvailableTimes(events, attendees, request.getDuration(), deadline));
+    return new QueryResult(times, deadline.wasReached());
+  }
+
+  /*
+   * Returns available slots for a meeting using a calendar snapshot, within the request's time
+   * budget. See {@link #queryWithinBudget(Collection, MeetingRequest)}.
+   *
+   * @param snapshot A consistent view of the calendar
+   * @param request {@link MeetingRequest} object with the request details
+   */
+  public QueryResult queryWithinBudget(CalendarSnapshot snapshot, MeetingRequest request) {
+    return queryWithinBudget(snapshot, request, Deadline.after(request.getTimeBudgetMillis()));
+  }
+
+  /**
+   * Like {@link #queryWithinBudget(CalendarSnapshot, MeetingRequest)}, but stops at
+   * {@code deadline} instead of the request's own time budget.
+   */
+  QueryResult queryWithinBudget(CalendarSnapshot snapshot, MeetingRequest request,
+      Deadline deadline) {
+    Collection<TimeRange> times = query(request, deadline,
+        attendees -> getAvailableTimes(snapshot, attendees, request.getDuration(), deadline));
+    return new QueryResult(times, deadline.wasReached());
+  }
+
+  /*
+   * Returns available slots for a meeting using an off-heap event store, with the same rules as
+   * {@link #query(Collection, MeetingRequest)}. The store's records are read in place, so no
+   * {@link Event} or {@link TimeRange} is created per event.
+   *
+   * @param store All existing events in the calendar
+   * @param request {@link MeetingRequest} object with the request details
+   */
+  public Collection<TimeRange> query(OffHeapEventStore store, MeetingRequest request) {
+    return query(request, Deadline.NONE,
+        attendees -> getAvailableTimes(store, attendees, request.getDuration()));
+  }
+
+  /*
+   * Returns available slots for a meeting using a calendar partitioned across shards, with the
+   * same rules as {@link #query(Collection, MeetingRequest)}. The busy times of the mandatory and
+   * the optional attendees are fetched together, so each shard is asked only once.
+   *
+   * @param calendar The partitioned calendar
+   * @param request {@link MeetingRequest} object with the request details
+   */
+  public Collection<TimeRange> query(PartitionedCalendar calendar, MeetingRequest request) {
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return Arrays.asList();
+    }
+
+    List<MinuteBitmap> busy = calendar.getBusyBitmaps(
+        Arrays.asList(request.getAttendees(), request.getOptionalAttendees()));
+    MinuteBitmap mandatoryBusy = busy.get(0);
+    if (request.getOptionalAttendees().isEmpty()) {
+      return mandatoryBusy.findAvailableTimes(request.getDuration());
+    }
+
+    MinuteBitmap allBusy = busy.get(1);
+    allBusy.or(mandatoryBusy);
+    Collection<TimeRange> availableTimesForAllAttendees =
+        allBusy.findAvailableTimes(request.getDuration());
+    if (availableTimesForAllAttendees.isEmpty()) {
+      return mandatoryBusy.findAvailableTimes(request.getDuration());
+    }
+    return availableTimesForAllAttendees;
+  }
+
+  /*
+   * Returns the {@code k} best slots for a meeting, best first. Every slot fits all mandatory
+   * attendees and lasts exactly the requested duration; slots are then ranked by
+   * {@code preferences}, how many optional attendees can come, and how little they fragment the
+   * remaining free time.
+   *
+   * @param events All existing events in the calendar
+   * @param request {@link MeetingRequest} object with the request details
+   * @param preferences What to prefer among the slots that fit
+   * @param k The most slots to return
+   */
+  public List<RankedSlot> queryRanked(Collection<Event> events, MeetingRequest request,
+      SlotPreferences preferences, int k) {
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return Collections.emptyList();
+    }
+
+    Map<String, List<TimeRange>> optionalBusyTimes = new HashMap<>();
+    for (String attendee : request.getOptionalAttendees()) {
+      optionalBusyTimes.put(attendee, new ArrayList<>());
+    }
+    for (Event event : events) {
+      for (String attendee : event.getAttendees()) {
+        List<TimeRange> busyTimes = optionalBusyTimes.get(attendee);
+        if (busyTimes != null) {
+          busyTimes.add(event.getWhen());
+        }
+      }
+    }
+
+    List<CompressedBusyList> merged = new ArrayList<>();
+    for (List<TimeRange> busyTimes : optionalBusyTimes.values()) {
+      merged.add(CompressedBusyList.of(busyTimes));
+    }
+    return SlotRanker.rank(
+        getAvailableTimes(events, request.getAttendees(), request.getDuration(), Deadline.NONE),
+        merged, (int) request.getDuration(), preferences, k);
+  }
+
+  /*
+   * Returns the {@code k} best slots for a meeting using a calendar snapshot, with the same rules
+   * as {@link #queryRanked(Collection, MeetingRequest, SlotPreferences, int)}.
+   *
+   * @param snapshot A consistent view of the calendar
+   * @param request {@link MeetingRequest} object with the request details
+   * @param preferences What to prefer among the slots that fit
+   * @param k The most slots to return
+   */
+  public List<RankedSlot> queryRanked(CalendarSnapshot snapshot, MeetingRequest request,
+      SlotPreferences preferences, int k) {
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return Collections.emptyList();
+    }
+
+    // Optional attendees' busy lists are cached in the snapshot, so they are merged only once
+    // however many ranked queries ask about them.
+    List<CompressedBusyList> optionalBusyTimes = new ArrayList<>();
+    for (String attendee : request.getOptionalAttendees()) {
+      MaterializedGroup named = snapshot.getGroup(attendee);
+      optionalBusyTimes.add(named != null ? named.getBusyList() : snapshot.getBusyList(attendee));
+    }
+    return SlotRanker.rank(
+        getAvailableTimes(snapshot, request.getAttendees(), request.getDuration(),
+            Deadline.NONE),
+        optionalBusyTimes, (int) request.getDuration(), preferences, k);
+  }
+
+  /*
+   * Returns the longest time that all of {@code attendees} are free and that ends no later than
+   * {@code before}, or {@code null} if they are never free together before then. This answers
+   * "what is the longest meeting we can hold before 15:00?" with one pass over the merged busy
+   * times, instead of searching over meeting durations. Use {@code TimeRange.WHOLE_DAY.end()} for
+   * the longest free time in the whole day.
+   *
+   * @param events All existing events in the calendar
+   * @param attendees The people who must all be free
+   * @param before The time, in minutes since the start of the day, the window must end by
+   */
+  public TimeRange queryLongest(Collection<Event> events, Collection<String> attendees,
+      int before) {
+    QueryStatistics statistics = new QueryStatistics(attendees.size());
+    return FreeSlots.longest(
+        BusyTimes.merge(
+            getBusyTimes(events, new HashSet<>(attendees), statistics, Deadline.NONE)),
+        before);
+  }
+
+  /*
+   * Returns the longest time that all of {@code attendees} are free before {@code before}, using a
+   * calendar snapshot. See {@link #queryLongest(Collection, Collection, int)}.
+   *
+   * @param snapshot A consistent view of the calendar
+   * @param attendees The people who must all be free
+   * @param before The time, in minutes since the start of the day, the window must end by
+   */
+  public TimeRange queryLongest(CalendarSnapshot snapshot, Collection<String> attendees,
+      int before) {
+    QueryStatistics statistics = new QueryStatistics(attendees.size());
+    return FreeSlots.longest(
+        BusyTimes.merge(getBusyTimes(snapshot, attendees, statistics, Deadline.NONE)), before);
+  }
+
+  /*
+   * Returns the times when every mandatory attendee is free and a room big enough for all
+   * attendees, mandatory and optional, is free too, paired with that room. Each time is at least
+   * the requested duration; see {@link RoomDirectory} for how rooms are searched.
+   *
+   * @param events All existing events in the calendar
+   * @param request {@link MeetingRequest} object with the request details
+   * @param rooms The rooms that may be booked
+   */
+  public List<RoomSlot> queryWithRooms(Collection<Event> events, MeetingRequest request,
+      RoomDirectory rooms) {
+    QueryStatistics statistics = new QueryStatistics(request.getAttendees().size());
+    return findRoomSlots(
+        getBusyTimes(events, new HashSet<>(request.getAttendees()), statistics, Deadline.NONE),
+        request, rooms);
+  }
+
+  /*
+   * Returns the times when the attendees and a big enough room are free, using a calendar
+   * snapshot. See {@link #queryWithRooms(Collection, MeetingRequest, RoomDirectory)}.
+   *
+   * @param snapshot A consistent view of the calendar
+   * @param request {@link MeetingRequest} object with the request details
+   * @param rooms The rooms that may be booked
+   */
+  public List<RoomSlot> queryWithRooms(CalendarSnapshot snapshot, MeetingRequest request,
+      RoomDirectory rooms) {
+    QueryStatistics statistics = new QueryStatistics(request.getAttendees().size());
+    return findRoomSlots(
+        getBusyTimes(snapshot, request.getAttendees(), statistics, Deadline.NONE), request,
+        rooms);
+  }
+
+  private static List<RoomSlot> findRoomSlots(List<TimeRange> busyTimes, MeetingRequest request,
+      RoomDirectory rooms) {
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return Collections.emptyList();
+    }
+
+    MinuteBitmap attendeesBusy = new MinuteBitmap();
+    for (TimeRange busy : busyTimes) {
+      attendeesBusy.setBusy(busy);
+    }
+    int capacity = request.getAttendees().size() + request.getOptionalAttendees().size();
+    return rooms.findRoomSlots(attendeesBusy, capacity, request.getDuration());
+  }
+
+  private Collection<TimeRange> query(MeetingRequest request, Deadline deadline,
+      Function<Collection<String>, Collection<TimeRange>> availableTimesFor) {
     if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
       return Arrays.asList();
     }
 
     Collection<String> mandatoryAttendees = request.getAttendees();
     Collection<String> optionalAttendees = request.getOptionalAttendees();
-    long meetingDuration = request.getDuration();
 
     if (optionalAttendees.isEmpty()) {
-      return getAvailableTimes(events, mandatoryAttendees, meetingDuration);
+      return availableTimesFor.apply(mandatoryAttendees);
     }
 
     Collection<String> allAttendees = Stream.
             concat(mandatoryAttendees.stream(), optionalAttendees.stream()).
-            collect(Collectors.toList());
+            collect(Collectors.toSet());
 
-    Collection<TimeRange> availableTimesForAllAttendees = getAvailableTimes(events, allAttendees, meetingDuration);
+    Collection<TimeRange> availableTimesForAllAttendees = availableTimesFor.apply(allAttendees);
 
-    if (availableTimesForAllAttendees.isEmpty()) {
-      return getAvailableTimes(events, mandatoryAttendees, meetingDuration);
+    // If time ran out, there is no budget left to look again without the optional attendees.
+    if (availableTimesForAllAttendees.isEmpty() && !deadline.wasReached()) {
+      return availableTimesFor.apply(mandatoryAttendees);
     }
     return availableTimesForAllAttendees;
   }
 
-  private Collection<TimeRange> getAvailableTimes(Collection<Event> events,
-         Collection<String> attendees, long duration) {
+  private Collection<TimeRange> getAvailableTimes(CalendarSnapshot snapshot,
+         Collection<String> attendees, long duration, Deadline deadline) {
     if (attendees.isEmpty()) {
       return Arrays.asList(TimeRange.WHOLE_DAY);
     }
 
-    // Get all unavailable time ranges based on the attendees
-    List<TimeRange> unavailableTimes = new ArrayList<>();
-    for (Event event: events) {
-      if (containsAtLeastOneAttendee(event, attendees)) {
-        unavailableTimes.add(event.getWhen());
-      }
+    Set<String> attendeeSet = new HashSet<>(attendees);
+    if (attendeeSet.size() >= BitmapKernel.WIDE_REQUEST_BITMAPS) {
+      return getAvailableTimesWide(snapshot, attendeeSet, duration, deadline);
     }
 
+    long started = QueryMetrics.start();
+    QueryStatistics statistics = new QueryStatistics(attendeeSet.size());
+    List<TimeRange> unavailableTimes = getBusyTimes(snapshot, attendees, statistics, deadline);
+    QueryMetrics.record(QueryMetrics.Phase.FILTER, started);
+    return findAvailableTimes(statistics, unavailableTimes, duration);
+  }
+
+  private Collection<TimeRange> getAvailableTimes(Collection<Event> events,
+         Collection<String> attendees, long duration, Deadline deadline) {
+    if (attendees.isEmpty()) {
+      return Arrays.asList(TimeRange.WHOLE_DAY);
+    }
+
+    Set<String> attendeeSet = attendees instanceof Set
+        ? (Set<String>) attendees : new HashSet<>(attendees);
+    long started = QueryMetrics.start();
+    QueryStatistics statistics = new QueryStatistics(attendeeSet.size());
+    List<TimeRange> unavailableTimes = getBusyTimes(events, attendeeSet, statistics, deadline);
+    QueryMetrics.record(QueryMetrics.Phase.FILTER, started);
+    return findAvailableTimes(statistics, unavailableTimes, duration);
+  }
+
+  private Collection<TimeRange> findAvailableTimes(QueryStatistics statistics,
+         List<TimeRange> unavailableTimes, long duration) {
+    QueryMetrics.countEventsScanned(statistics.getEventCount());
     if (unavailableTimes.isEmpty()) {
+      QueryMetrics.countSlotsProduced(1);
       return Arrays.asList(TimeRange.WHOLE_DAY);
     }
 
-    // Combine all overlapping unavailable time ranges
-    Collections.sort(unavailableTimes, TimeRange.ORDER_BY_START);
-    int index = 1;
-    TimeRange current, next;
-    while (index < unavailableTimes.size()) {
-      current = unavailableTimes.get(index - 1);
-      next = unavailableTimes.get(index);
-      if (current.overlaps(next)) {
-        int start = Math.min(current.start(), next.start());
-        int end = Math.max(current.end(), next.end());
-        TimeRange overlapped = TimeRange.fromStartEnd(start, end, /* inclusive */false);
-        unavailableTimes.set(index - 1, overlapped);
-        unavailableTimes.remove(next);
+    // Combine the unavailable time ranges and find the gaps between them, using whichever engine
+    // the planner expects to be cheapest for this shape of request.
+    QueryMetrics.countRangesMerged(unavailableTimes.size());
+    Collection<TimeRange> availableTimes = planner.execute(statistics, unavailableTimes, duration);
+    QueryMetrics.countSlotsProduced(availableTimes.size());
+    return availableTimes;
+  }
+
+  private static Collection<TimeRange> getAvailableTimes(OffHeapEventStore store,
+         Collection<String> attendees, long duration) {
+    if (attendees.isEmpty()) {
+      return Arrays.asList(TimeRange.WHOLE_DAY);
+    }
+
+    // Busy times are painted as they are found, so filtering and merging are timed together.
+    long started = QueryMetrics.start();
+    BitSet ids = store.getAttendeeIds(attendees);
+    MinuteBitmap busy = new MinuteBitmap();
+    if (!ids.isEmpty()) {
+      for (OffHeapEventStore.Cursor cursor = store.cursor(); cursor.next();) {
+        if (cursor.getDuration() > 0 && cursor.hasAttendeeIn(ids)) {
+          busy.setBusy(cursor.getStart(), cursor.getEnd());
+        }
+      }
+      QueryMetrics.countEventsScanned(store.size());
+    }
+    started = QueryMetrics.record(QueryMetrics.Phase.FILTER, started);
+    Collection<TimeRange> availableTimes = busy.findAvailableTimes(duration);
+    QueryMetrics.record(QueryMetrics.Phase.GAPS, started);
+    QueryMetrics.countSlotsProduced(availableTimes.size());
+    return availableTimes;
+  }
+
+  /**
+   * Finds available times for requests with many attendees by ORing the attendees' cached busy
+   * bitmaps from {@code snapshot}, rather than collecting and merging all their events.
+   */
+  private static Collection<TimeRange> getAvailableTimesWide(CalendarSnapshot snapshot,
+         Set<String> attendees, long duration, Deadline deadline) {
+    long started = QueryMetrics.start();
+    List<long[]> bitmaps = new ArrayList<>(attendees.size());
+    for (String attendee : attendees) {
+      if (shouldStop(bitmaps.size(), deadline)) {
+        break;
+      }
+      MaterializedGroup named = snapshot.getGroup(attendee);
+      if (named != null) {
+        MinuteBitmap groupBusy = new MinuteBitmap();
+        for (TimeRange busy : named.getBusyTimes()) {
+          groupBusy.setBusy(busy);
+        }
+        bitmaps.add(groupBusy.words());
       } else {
-        index++;
+        bitmaps.add(snapshot.getBusyWords(attendee));
       }
     }
 
-    // Create slots between unavailable time ranges
+    started = QueryMetrics.record(QueryMetrics.Phase.FILTER, started);
+
+    BitmapKernel kernel = BitmapKernel.select(bitmaps.size());
+    long[] busy = new long[MinuteBitmap.WORDS];
+    kernel.or(busy, bitmaps);
+    started = QueryMetrics.record(QueryMetrics.Phase.MERGE, started);
     Collection<TimeRange> availableTimes = new ArrayList<>();
-    for (int i = 0; i < unavailableTimes.size(); i++) {
-      if (i == 0) {
-        addSlotToAvailableTimesIfSlotValid(TimeRange.START_OF_DAY,
-                unavailableTimes.get(i).start(), duration, availableTimes);
-      } else  {
-        addSlotToAvailableTimesIfSlotValid(unavailableTimes.get(i - 1).end(),
-                unavailableTimes.get(i).start(), duration, availableTimes);
+    kernel.forEachFreeRun(busy, MinuteBitmap.MINUTES_PER_DAY, duration,
+        (start, end) -> FreeSlots.addIfLongEnough(start, end, duration, availableTimes));
+    QueryMetrics.record(QueryMetrics.Phase.GAPS, started);
+    QueryMetrics.countSlotsProduced(availableTimes.size());
+    return availableTimes;
+  }
+
+  /**
+   * Returns the (unmerged) times when at least one of {@code attendees} is busy, according to
+   * {@code snapshot}.
+   */
+  private static List<TimeRange> getBusyTimes(CalendarSnapshot snapshot,
+         Collection<String> attendees, QueryStatistics statistics, Deadline deadline) {
+    Set<String> uncovered = new HashSet<>(attendees);
+    List<TimeRange> unavailableTimes = new ArrayList<>();
+
+    // Attendees that name a group (such as a distribution list) stand for all of its members, so
+    // use the group's busy times rather than expanding it.
+    for (String attendee : attendees) {
+      MaterializedGroup named = snapshot.getGroup(attendee);
+      if (named != null) {
+        for (TimeRange busy : named.getBusyTimes()) {
+          unavailableTimes.add(busy);
+          statistics.recordBusyTime(busy);
+        }
+        uncovered.remove(attendee);
+        uncovered.removeAll(named.getMembers());
       }
-      if (i == unavailableTimes.size() - 1) {
-        addSlotToAvailableTimesIfSlotValid(unavailableTimes.get(i).end(),
-                TimeRange.END_OF_DAY, duration, availableTimes);
+    }
+
+    // Start from the busy times of requested groups, biggest first, as long as each one still
+    // covers somebody.
+    List<MaterializedGroup> groups = snapshot.getGroupsWithin(uncovered);
+    groups.sort((a, b) -> Integer.compare(b.getMembers().size(), a.getMembers().size()));
+    for (MaterializedGroup group : groups) {
+      if (!Collections.disjoint(uncovered, group.getMembers())) {
+        for (TimeRange busy : group.getBusyTimes()) {
+          unavailableTimes.add(busy);
+          statistics.recordBusyTime(busy);
+        }
+        uncovered.removeAll(group.getMembers());
       }
     }
 
-    return availableTimes;
+    // An event attended by several requested people is in several index entries, so dedupe by
+    // identity rather than by the (comparatively expensive) Event.equals.
+    Set<Event> relevantEvents = Collections.newSetFromMap(new IdentityHashMap<>());
+    int looked = 0;
+    for (String attendee : uncovered) {
+      if (shouldStop(looked++, deadline)) {
+        break;
+      }
+      relevantEvents.addAll(snapshot.getEventsFor(attendee));
+    }
+    for (Event event : relevantEvents) {
+      if (shouldStop(statistics.getEventCount(), deadline)) {
+        break;
+      }
+      statistics.recordScannedEvent(event);
+      if (event.getWhen().duration() > 0) {
+        unavailableTimes.add(event.getWhen());
+        statistics.recordBusyTime(event.getWhen());
+      }
+    }
+    return unavailableTimes;
   }
 
-  private boolean containsAtLeastOneAttendee(Event event, Collection<String> attendees) {
-    for (String attendee: attendees) {
-      if (event.getAttendees().contains(attendee)) {
-        return true;
+  /**
+   * Returns the (unmerged) times of the events in {@code events} attended by at least one of
+   * {@code attendees}.
+   */
+  private static List<TimeRange> getBusyTimes(Collection<Event> events, Set<String> attendees,
+         QueryStatistics statistics, Deadline deadline) {
+    List<TimeRange> unavailableTimes = new ArrayList<>();
+    for (Event event: events) {
+      if (shouldStop(statistics.getEventCount(), deadline)) {
+        break;
+      }
+      statistics.recordScannedEvent(event);
+      // An event with no duration doesn't make anyone busy.
+      if (event.getWhen().duration() > 0 && containsAtLeastOneAttendee(event, attendees)) {
+        unavailableTimes.add(event.getWhen());
+        statistics.recordBusyTime(event.getWhen());
       }
     }
-    return false;
+    return unavailableTimes;
   }
 
-  private void addSlotToAvailableTimesIfSlotValid(int start, int end, long duration,
-                                                  Collection<TimeRange> availableTimes) {
-    if (start < end && end - start >= duration) {
-      boolean inclusive = end == TimeRange.END_OF_DAY;
-      availableTimes.add(TimeRange.fromStartEnd(start, end, inclusive));
+  /**
+   * Returns whether a loop that has done {@code iterations} steps should stop because
+   * {@code deadline} has passed. The clock is only read every few steps, and never before the
+   * first batch of steps is done: a loop stopped at step 0 would have found no busy times, and its
+   * query would report the whole day as free.
+   */
+  private static boolean shouldStop(int iterations, Deadline deadline) {
+    return iterations > 0 && (iterations & DEADLINE_CHECK_MASK) == 0 && deadline.expired();
+  }
+
+  private static boolean containsAtLeastOneAttendee(Event event, Set<String> attendees) {
+    // Probe the larger set with the members of the smaller one.
+    Set<String> eventAttendees = event.getAttendees();
+    Set<String> smaller = eventAttendees.size() <= attendees.size() ? eventAttendees : attendees;
+    Set<String> larger = smaller == eventAttendees ? attendees : eventAttendees;
+    for (String attendee: smaller) {
+      if (larger.contains(attendee)) {
+        return true;
+      }
     }
+    return false;
   }
 }
@@ -0,0 +1,83 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Shared rules for which gaps between busy times are usable meeting slots, so that every
+ * {@link AvailabilityEngine} returns exactly the same answers.
+ */
+final class FreeSlots {
+  private FreeSlots() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns the slots of at least {@code duration} minutes between already-merged busy times.
+   */
+  static Collection<TimeRange> between(List<TimeRange> unavailableTimes, long duration) {
+    Collection<TimeRange> availableTimes = new ArrayList<>();
+    int previousEnd = TimeRange.START_OF_DAY;
+    for (TimeRange unavailable : unavailableTimes) {
+      addIfLongEnough(previousEnd, unavailable.start(), duration, availableTimes);
+      previousEnd = unavailable.end();
+    }
+    addIfLongEnough(previousEnd, TimeRange.WHOLE_DAY.end(), duration, availableTimes);
+    return availableTimes;
+  }
+
+  /**
+   * Returns the longest gap between already-merged busy times that ends no later than
+   * {@code before}, or {@code null} if there is none. Ties go to the earliest gap. This is a
+   * single pass over {@code unavailableTimes}, stopping at {@code before}.
+   */
+  static TimeRange longest(List<TimeRange> unavailableTimes, int before) {
+    int limit = Math.min(before, TimeRange.WHOLE_DAY.end());
+    TimeRange longest = null;
+    int previousEnd = TimeRange.START_OF_DAY;
+    for (TimeRange unavailable : unavailableTimes) {
+      if (previousEnd >= limit) {
+        return longest;
+      }
+      longest = longer(longest, previousEnd, Math.min(unavailable.start(), limit));
+      previousEnd = unavailable.end();
+    }
+    return longer(longest, previousEnd, limit);
+  }
+
+  private static TimeRange longer(TimeRange longest, int start, int end) {
+    if (start < end && (longest == null || end - start > longest.duration())) {
+      return TimeRange.fromStartEnd(start, end, /* inclusive */false);
+    }
+    return longest;
+  }
+
+  /**
+   * Adds the gap from {@code start} to {@code end}, exclusive, to {@code availableTimes} if it is
+   * long enough for a meeting of {@code duration} minutes. A gap that runs to the end of the day
+   * ends at {@code TimeRange.WHOLE_DAY.end()}, so that it includes {@link TimeRange#END_OF_DAY}
+   * only when nobody is busy then.
+   */
+  static void addIfLongEnough(int start, int end, long duration,
+                              Collection<TimeRange> availableTimes) {
+    end = Math.min(end, TimeRange.WHOLE_DAY.end());
+    if (start < end && end - start >= duration) {
+      availableTimes.add(TimeRange.fromStartEnd(start, end, /* inclusive */false));
+    }
+  }
+}
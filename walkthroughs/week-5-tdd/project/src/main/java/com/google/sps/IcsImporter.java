@@ -0,0 +1,364 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Imports events from iCalendar ({@code .ics}) files. Files are read line by line, so only the
+ * event being parsed is held in memory, and several files are parsed in parallel. Attendee names
+ * are interned across all files, since the same people appear in thousands of events.
+ *
+ * <p>Only the parts the scheduler understands are read: {@code SUMMARY}, {@code DTSTART},
+ * {@code DTEND} (or {@code DURATION}) and {@code ATTENDEE} of each {@code VEVENT}. The scheduler
+ * works with minutes of a single day, so an importer is made for one date in one time zone. Times
+ * in UTC ({@code Z}) or with a {@code TZID} are converted to that zone, while floating times and
+ * dates are taken to be in it already. Events that don't touch the date are skipped, and events
+ * that start before it or end after it are cut off at its start or end.
+ */
+public final class IcsImporter {
+  // Number of events submitted to the calendar at once.
+  private static final int LOAD_BATCH_SIZE = 10_000;
+
+  private static final Pattern DATE_TIME =
+      Pattern.compile("(\\d{4})(\\d{2})(\\d{2})(?:T(\\d{2})(\\d{2})(?:\\d{2})?(Z)?)?");
+  private static final Pattern DURATION =
+      Pattern.compile("P(?:(\\d+)W)?(?:(\\d+)D)?(?:T(?:(\\d+)H)?(?:(\\d+)M)?(?:\\d+S)?)?");
+
+  private final LocalDate date;
+  private final ZoneId zone;
+  private final ConcurrentMap<String, String> names = new ConcurrentHashMap<>();
+
+  /**
+   * Creates an importer for the events on {@code date}, with times of day in {@code zone}.
+   */
+  public IcsImporter(LocalDate date, ZoneId zone) {
+    this.date = date;
+    this.zone = zone;
+  }
+
+  /**
+   * Parses every file in {@code files} in parallel and loads all of their events into
+   * {@code calendar}. The returned future completes with the first snapshot containing every
+   * imported event.
+   *
+   * @throws UncheckedIOException if one of the files can't be read
+   */
+  public CompletableFuture<CalendarSnapshot> importFiles(Collection<Path> files,
+      EventCalendar calendar) {
+    List<CompletableFuture<CalendarSnapshot>> loads = new ArrayList<>();
+    files.parallelStream().forEach(file -> {
+      List<EventMutation> batch = new ArrayList<>();
+      try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+        parse(reader, event -> {
+          batch.add(EventMutation.add(event));
+          if (batch.size() == LOAD_BATCH_SIZE) {
+            submit(calendar, batch, loads);
+          }
+        });
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not import " + file, e);
+      }
+      submit(calendar, batch, loads);
+    });
+
+    return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]))
+        .thenApply(ignored -> calendar.snapshot());
+  }
+
+  /**
+   * Parses the iCalendar data in {@code reader}, passing each event to {@code consumer} as soon as
+   * it has been read.
+   */
+  public void parse(Reader reader, Consumer<Event> consumer) throws IOException {
+    BufferedReader lines =
+        reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    VEventBuilder event = null;
+    StringBuilder logicalLine = null;
+
+    String line;
+    while ((line = lines.readLine()) != null) {
+      // Long lines are folded by starting their continuation lines with a space or tab.
+      if (!line.isEmpty() && (line.charAt(0) == ' ' || line.charAt(0) == '\t')) {
+        if (logicalLine != null) {
+          logicalLine.append(line, 1, line.length());
+        }
+        continue;
+      }
+      if (logicalLine != null) {
+        event = handleLine(logicalLine.toString(), event, consumer);
+      }
+      logicalLine = new StringBuilder(line);
+    }
+    if (logicalLine != null) {
+      handleLine(logicalLine.toString(), event, consumer);
+    }
+  }
+
+  private void submit(EventCalendar calendar, List<EventMutation> batch,
+      List<CompletableFuture<CalendarSnapshot>> loads) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    CompletableFuture<CalendarSnapshot> load = calendar.submit(batch);
+    synchronized (loads) {
+      loads.add(load);
+    }
+    batch.clear();
+  }
+
+  /**
+   * Applies one unfolded content line and returns the event being built afterwards, if any.
+   */
+  private VEventBuilder handleLine(String line, VEventBuilder event, Consumer<Event> consumer) {
+    int colon = valueSeparator(line);
+    if (colon < 0) {
+      return event;
+    }
+    String nameAndParameters = line.substring(0, colon);
+    String value = line.substring(colon + 1);
+    int semicolon = nameAndParameters.indexOf(';');
+    String name = (semicolon < 0 ? nameAndParameters : nameAndParameters.substring(0, semicolon))
+        .toUpperCase();
+    String parameters = semicolon < 0 ? "" : nameAndParameters.substring(semicolon + 1);
+
+    if (name.equals("BEGIN") && value.equalsIgnoreCase("VEVENT")) {
+      return new VEventBuilder(date);
+    }
+    if (event == null) {
+      return null;
+    }
+
+    switch (name) {
+      case "END":
+        if (value.equalsIgnoreCase("VEVENT")) {
+          Event built = event.build();
+          if (built != null) {
+            consumer.accept(built);
+          }
+          return null;
+        }
+        break;
+      case "SUMMARY":
+        event.title = unescape(value);
+        break;
+      case "DTSTART":
+        event.start = parseDateTime(parameters, value);
+        event.allDay = value.indexOf('T') < 0;
+        break;
+      case "DTEND":
+        event.end = parseDateTime(parameters, value);
+        break;
+      case "DURATION":
+        event.duration = parseDuration(value);
+        break;
+      case "ATTENDEE":
+        event.attendees.add(intern(attendeeName(parameters, value)));
+        break;
+      default:
+        break;
+    }
+    return event;
+  }
+
+  private String intern(String name) {
+    String existing = names.putIfAbsent(name, name);
+    return existing == null ? name : existing;
+  }
+
+  /**
+   * Returns the index of the colon separating a property's name and parameters from its value,
+   * skipping colons inside quoted parameter values.
+   */
+  private static int valueSeparator(String line) {
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (c == '"') {
+        quoted = !quoted;
+      } else if (c == ':' && !quoted) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the attendee's common name if it has one, and otherwise its address.
+   */
+  private static String attendeeName(String parameters, String value) {
+    for (String parameter : parameters.split(";")) {
+      if (parameter.regionMatches(true, 0, "CN=", 0, 3)) {
+        String name = parameter.substring(3);
+        if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+          name = name.substring(1, name.length() - 1);
+        }
+        return name;
+      }
+    }
+    return value.regionMatches(true, 0, "mailto:", 0, 7) ? value.substring(7) : value;
+  }
+
+  /**
+   * Returns the date and time in {@code value}, converted to the importer's zone, or {@code null}
+   * if it can't be parsed. A date without a time stands for the start of that day.
+   */
+  private LocalDateTime parseDateTime(String parameters, String value) {
+    Matcher matcher = DATE_TIME.matcher(value.trim());
+    if (!matcher.matches()) {
+      return null;
+    }
+    try {
+      LocalDate day = LocalDate.of(Integer.parseInt(matcher.group(1)),
+          Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3)));
+      if (matcher.group(4) == null) {
+        return day.atStartOfDay();
+      }
+      LocalDateTime local = day.atTime(
+          Integer.parseInt(matcher.group(4)), Integer.parseInt(matcher.group(5)));
+      ZoneId source = matcher.group(6) != null ? ZoneOffset.UTC : timeZone(parameters);
+      return source == null ? local : local.atZone(source).withZoneSameInstant(zone)
+          .toLocalDateTime();
+    } catch (DateTimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the zone named by the {@code TZID} parameter, or {@code null} if there is none. Zones
+   * Java doesn't know (such as Windows zone names) are also {@code null}, so their times are read
+   * as floating times.
+   */
+  private static ZoneId timeZone(String parameters) {
+    for (String parameter : parameters.split(";")) {
+      if (parameter.regionMatches(true, 0, "TZID=", 0, 5)) {
+        String name = parameter.substring(5);
+        if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+          name = name.substring(1, name.length() - 1);
+        }
+        try {
+          return ZoneId.of(name);
+        } catch (DateTimeException e) {
+          return null;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static long parseDuration(String value) {
+    Matcher matcher = DURATION.matcher(value);
+    if (!matcher.matches()) {
+      return -1;
+    }
+    long minutes = 0;
+    minutes += groupOrZero(matcher, 1) * 7 * 24 * 60;
+    minutes += groupOrZero(matcher, 2) * 24 * 60;
+    minutes += groupOrZero(matcher, 3) * 60;
+    minutes += groupOrZero(matcher, 4);
+    return minutes;
+  }
+
+  private static long groupOrZero(Matcher matcher, int group) {
+    return matcher.group(group) == null ? 0 : Long.parseLong(matcher.group(group));
+  }
+
+  private static String unescape(String text) {
+    if (text.indexOf('\\') < 0) {
+      return text;
+    }
+    return text.replace("\\n", " ").replace("\\N", " ").replace("\\,", ",")
+        .replace("\\;", ";").replace("\\\\", "\\");
+  }
+
+  /** The properties of the event currently being parsed. */
+  private static final class VEventBuilder {
+    private final LocalDate date;
+    private String title = "";
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private long duration = -1;
+    private boolean allDay;
+    private final List<String> attendees = new ArrayList<>();
+
+    private VEventBuilder(LocalDate date) {
+      this.date = date;
+    }
+
+    /**
+     * Returns the parsed event cut to the importer's date, or {@code null} if it has no usable
+     * start time or doesn't touch the date.
+     */
+    private Event build() {
+      if (start == null) {
+        return null;
+      }
+
+      LocalDateTime until;
+      if (end != null) {
+        until = end;
+      } else if (duration >= 0) {
+        until = start.plusMinutes(duration);
+      } else {
+        // Without an end, a date-only event lasts all day and a timed event is instantaneous.
+        until = allDay ? start.plusDays(1) : start;
+      }
+      if (until.isBefore(start)) {
+        until = start;
+      }
+
+      LocalDateTime dayStart = date.atStartOfDay();
+      LocalDateTime dayEnd = date.plusDays(1).atStartOfDay();
+      boolean startsOnDate = !start.isBefore(dayStart) && start.isBefore(dayEnd);
+      boolean overlapsDate = start.isBefore(dayEnd) && until.isAfter(dayStart);
+      if (!startsOnDate && !overlapsDate) {
+        return null;
+      }
+      return new Event(title,
+          TimeRange.fromStartEnd(minuteOfDay(start), minuteOfDay(until), false), attendees);
+    }
+
+    /** Returns the minute of the importer's date that {@code time} falls on, clamped to it. */
+    private int minuteOfDay(LocalDateTime time) {
+      if (time.toLocalDate().isBefore(date)) {
+        return TimeRange.START_OF_DAY;
+      }
+      if (time.toLocalDate().isAfter(date)) {
+        return MinuteBitmap.MINUTES_PER_DAY;
+      }
+      return TimeRange.getTimeInMinutes(time.getHour(), time.getMinute());
+    }
+  }
+}
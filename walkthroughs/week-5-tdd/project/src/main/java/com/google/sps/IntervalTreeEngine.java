@@ -0,0 +1,83 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Inserts busy times one by one into a search tree of disjoint, already-merged ranges. Each
+ * insertion costs a logarithm of the number of disjoint ranges rather than of all busy times, so
+ * this wins when many busy times pile up on the same few blocks of a long horizon.
+ */
+final class IntervalTreeEngine implements AvailabilityEngine {
+  @Override
+  public String getName() {
+    return "interval-tree";
+  }
+
+  @Override
+  public double estimateWork(QueryStatistics statistics) {
+    // The tree can hold at most as many disjoint ranges as fit in the horizon.
+    int busyCount = statistics.getBusyCount();
+    double averageLength = Math.max(1.0, statistics.getBusyMinutes() / (double) busyCount);
+    int disjointRanges = (int) Math.min(busyCount, statistics.getHorizon() / averageLength);
+    return 8 + busyCount * (SortMergeEngine.log2(disjointRanges) + 2) + disjointRanges;
+  }
+
+  @Override
+  public Collection<TimeRange> findAvailableTimes(List<TimeRange> busyTimes, long duration) {
+    // Maps the start of each disjoint busy range to its end. Inserting keeps it sorted and merged,
+    // so both are timed as merging.
+    long started = QueryMetrics.start();
+    TreeMap<Integer, Integer> merged = new TreeMap<>();
+    for (TimeRange busy : busyTimes) {
+      if (busy.duration() > 0) {
+        insert(merged, busy.start(), busy.end());
+      }
+    }
+    started = QueryMetrics.record(QueryMetrics.Phase.MERGE, started);
+
+    Collection<TimeRange> availableTimes = new ArrayList<>();
+    int previousEnd = TimeRange.START_OF_DAY;
+    for (Map.Entry<Integer, Integer> range : merged.entrySet()) {
+      FreeSlots.addIfLongEnough(previousEnd, range.getKey(), duration, availableTimes);
+      previousEnd = range.getValue();
+    }
+    FreeSlots.addIfLongEnough(previousEnd, TimeRange.WHOLE_DAY.end(), duration, availableTimes);
+    QueryMetrics.record(QueryMetrics.Phase.GAPS, started);
+    return availableTimes;
+  }
+
+  private static void insert(TreeMap<Integer, Integer> merged, int start, int end) {
+    Map.Entry<Integer, Integer> previous = merged.floorEntry(start);
+    if (previous != null && previous.getValue() > start) {
+      start = previous.getKey();
+      end = Math.max(end, previous.getValue());
+      merged.remove(previous.getKey());
+    }
+
+    Map.Entry<Integer, Integer> next = merged.ceilingEntry(start);
+    while (next != null && next.getKey() < end) {
+      end = Math.max(end, next.getValue());
+      merged.remove(next.getKey());
+      next = merged.ceilingEntry(start);
+    }
+    merged.put(start, end);
+  }
+}
@@ -0,0 +1,130 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of nanosecond latencies, laid out like an HdrHistogram: values below 64
+ * are counted exactly, and every power of two above that is split into 32 equal buckets, so any
+ * recorded value is known to within about 3%. All buckets are allocated up front and recording
+ * only increments counters, so it never allocates.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  // Enough powers of two for every non-negative long.
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records one latency of {@code nanos}. Negative values, which only a misbehaving clock can
+   * produce, are recorded as zero.
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(indexOf(value));
+    count.increment();
+    sum.add(value);
+    long previous = max.get();
+    while (value > previous && !max.compareAndSet(previous, value)) {
+      previous = max.get();
+    }
+  }
+
+  /**
+   * Returns how many latencies have been recorded.
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Returns the largest recorded latency, or 0 if nothing has been recorded.
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Returns the mean recorded latency, or 0 if nothing has been recorded.
+   */
+  public double getMean() {
+    long total = count.sum();
+    return total == 0 ? 0 : sum.sum() / (double) total;
+  }
+
+  /**
+   * Returns a value that at least {@code percentile} percent of recorded latencies are less than
+   * or equal to, accurate to the width of one bucket. Returns 0 if nothing has been recorded.
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("percentile must be between 0 and 100");
+    }
+
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      total += counts.get(i);
+    }
+    long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= target) {
+        return Math.min(highestValueAt(i), max.get());
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Forgets every recorded latency. Latencies recorded while the reset is in progress may be
+   * partly kept.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+    count.reset();
+    sum.reset();
+    max.set(0);
+  }
+
+  static int indexOf(long value) {
+    if (value < 2 * SUB_BUCKETS) {
+      return (int) value;
+    }
+    // Keep the top SUB_BUCKET_BITS + 1 bits of the value; the highest one is always set.
+    int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+    int top = (int) (value >>> shift);
+    return (shift + 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+  }
+
+  static long highestValueAt(int index) {
+    if (index < 2 * SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long top = index % SUB_BUCKETS + SUB_BUCKETS;
+    return ((top + 1) << shift) - 1;
+  }
+}
@@ -0,0 +1,74 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A {@link CalendarShard} that keeps its events in an {@link EventCalendar} in this JVM and
+ * answers busy-time requests on a thread of its own, standing in for a separate worker process.
+ */
+public final class LocalCalendarShard implements CalendarShard, AutoCloseable {
+  private final EventCalendar calendar = new EventCalendar();
+  private final ExecutorService executor;
+
+  /**
+   * Creates an empty shard whose worker thread is called {@code name}.
+   */
+  public LocalCalendarShard(String name) {
+    this.executor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @Override
+  public CompletableFuture<Void> apply(List<EventMutation> mutations) {
+    return calendar.submit(mutations).thenApply(snapshot -> null);
+  }
+
+  @Override
+  public CompletableFuture<List<long[]>> getBusyWords(List<Collection<String>> attendeeSets) {
+    return CompletableFuture.supplyAsync(() -> {
+      CalendarSnapshot snapshot = calendar.snapshot();
+      List<long[]> bitmaps = new ArrayList<>(attendeeSets.size());
+      for (Collection<String> attendees : attendeeSets) {
+        List<long[]> attendeeBitmaps = new ArrayList<>(attendees.size());
+        for (String attendee : attendees) {
+          attendeeBitmaps.add(snapshot.getBusyWords(attendee));
+        }
+        long[] busy = new long[MinuteBitmap.WORDS];
+        BitmapKernel.select(attendeeBitmaps.size()).or(busy, attendeeBitmaps);
+        bitmaps.add(busy);
+      }
+      return bitmaps;
+    }, executor);
+  }
+
+  /**
+   * Stops the shard's worker thread and its calendar.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+    calendar.close();
+  }
+}
@@ -0,0 +1,77 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A named group of attendees, such as a team or an interview panel, whose combined busy times are
+ * kept precomputed in every {@link CalendarSnapshot}. A request that includes every member of a
+ * group can start from the group's busy times instead of merging each member's events again.
+ * Groups are considered read-only; a new instance is made whenever the busy times change. The busy
+ * times are kept as a {@link CompressedBusyList}, since a snapshot holds them for every group.
+ */
+public final class MaterializedGroup {
+  private final String name;
+  private final Set<String> members = new HashSet<>();
+  private final CompressedBusyList busyTimes;
+
+  MaterializedGroup(String name, Collection<String> members, CompressedBusyList busyTimes) {
+    this.name = name;
+    this.members.addAll(members);
+    this.busyTimes = busyTimes;
+  }
+
+  /**
+   * Returns the name the group was defined with.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns a read-only set of the group's members.
+   */
+  public Set<String> getMembers() {
+    return Collections.unmodifiableSet(members);
+  }
+
+  /**
+   * Returns the times when at least one member is busy, sorted by start and with overlapping times
+   * merged.
+   */
+  public List<TimeRange> getBusyTimes() {
+    return Collections.unmodifiableList(busyTimes.toList());
+  }
+
+  /**
+   * Returns the times when at least one member is busy, in compressed form.
+   */
+  public CompressedBusyList getBusyList() {
+    return busyTimes;
+  }
+
+  /**
+   * Returns a copy of this group that is busy at {@code busyTimes}, which must be sorted by start
+   * and merged.
+   */
+  MaterializedGroup withBusyTimes(List<TimeRange> busyTimes) {
+    return new MaterializedGroup(name, members, CompressedBusyList.ofMerged(busyTimes));
+  }
+}
@@ -39,6 +39,9 @@ public final class MeetingRequest {
   // The duration of the meeting in minutes.
   private final long duration;
 
+  // How long the server may spend looking for times, in milliseconds, or 0 for no limit.
+  private long time_budget_ms;
+
   public MeetingRequest(Collection<String> attendees, long duration) {
     this.duration = duration;
     this.attendees.addAll(attendees);
@@ -73,4 +76,22 @@ public final class MeetingRequest {
   public long getDuration() {
     return duration;
   }
+
+  /**
+   * Returns how long the server may spend looking for meeting times, in milliseconds, or 0 if
+   * there is no limit.
+   */
+  public long getTimeBudgetMillis() {
+    return time_budget_ms;
+  }
+
+  /**
+   * Limits how long the server may spend looking for meeting times. A budget of 0 means no limit.
+   */
+  public void setTimeBudgetMillis(long budgetMillis) {
+    if (budgetMillis < 0) {
+      throw new IllegalArgumentException("budgetMillis must not be negative");
+    }
+    this.time_budget_ms = budgetMillis;
+  }
 }
@@ -0,0 +1,193 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A fixed-size bitmap with one bit per minute of the day, where a set bit means busy. Bitmaps for
+ * different people can be combined with a handful of word-wide ORs, and free runs are found by
+ * skipping whole 64-minute words at a time.
+ */
+final class MinuteBitmap {
+  static final int MINUTES_PER_DAY = TimeRange.WHOLE_DAY.duration();
+  static final int WORDS = (MINUTES_PER_DAY + Long.SIZE - 1) / Long.SIZE;
+
+  private final long[] words = new long[WORDS];
+
+  /**
+   * Marks the minutes of {@code range} that fall within the day as busy.
+   */
+  void setBusy(TimeRange range) {
+    setBusy(range.start(), range.end());
+  }
+
+  /**
+   * Marks the minutes from {@code start} (inclusive) to {@code end} (exclusive) as busy.
+   */
+  void setBusy(int start, int end) {
+    update(start, end, true);
+  }
+
+  /**
+   * Marks the minutes from {@code start} (inclusive) to {@code end} (exclusive) as free.
+   */
+  void setFree(int start, int end) {
+    update(start, end, false);
+  }
+
+  private void update(int start, int end, boolean busy) {
+    start = Math.max(start, 0);
+    end = Math.min(end, MINUTES_PER_DAY);
+    if (start >= end) {
+      return;
+    }
+
+    int firstWord = start / Long.SIZE;
+    int lastWord = (end - 1) / Long.SIZE;
+    long firstMask = -1L << (start % Long.SIZE);
+    long lastMask = -1L >>> (Long.SIZE - 1 - (end - 1) % Long.SIZE);
+    for (int i = firstWord; i <= lastWord; i++) {
+      long mask = -1L;
+      if (i == firstWord) {
+        mask &= firstMask;
+      }
+      if (i == lastWord) {
+        mask &= lastMask;
+      }
+      words[i] = busy ? words[i] | mask : words[i] & ~mask;
+    }
+  }
+
+  /**
+   * Marks every minute that is busy in {@code other} as busy in this bitmap too.
+   */
+  void or(MinuteBitmap other) {
+    for (int i = 0; i < WORDS; i++) {
+      words[i] |= other.words[i];
+    }
+  }
+
+  /**
+   * Marks every minute whose bit is set in {@code otherWords}, laid out as in {@link #words()}, as
+   * busy in this bitmap too.
+   */
+  void or(long[] otherWords) {
+    for (int i = 0; i < WORDS; i++) {
+      words[i] |= otherWords[i];
+    }
+  }
+
+  /**
+   * Marks every minute that is free in {@code other} as free in this bitmap too.
+   */
+  void and(MinuteBitmap other) {
+    for (int i = 0; i < WORDS; i++) {
+      words[i] &= other.words[i];
+    }
+  }
+
+  /**
+   * Returns whether every minute from {@code start} (inclusive) to {@code end} (exclusive) is free.
+   */
+  boolean isFree(int start, int end) {
+    return nextBusy(start) >= end;
+  }
+
+  /**
+   * Returns the first busy minute at or after {@code minute}, or {@link #MINUTES_PER_DAY} if there
+   * is none.
+   */
+  int nextBusy(int minute) {
+    return nextMatching(minute, 0L);
+  }
+
+  /**
+   * Returns the first free minute at or after {@code minute}, or {@link #MINUTES_PER_DAY} if there
+   * is none.
+   */
+  int nextFree(int minute) {
+    return nextMatching(minute, -1L);
+  }
+
+  /**
+   * Returns the earliest minute at which a free run of at least {@code duration} minutes starts,
+   * or -1 if there is none.
+   */
+  int firstFit(long duration) {
+    int minute = nextFree(0);
+    while (minute < MINUTES_PER_DAY) {
+      int busy = nextBusy(minute);
+      if (busy - minute >= duration) {
+        return minute;
+      }
+      minute = nextFree(busy);
+    }
+    return -1;
+  }
+
+  /**
+   * Returns how many minutes are free.
+   */
+  int freeMinutes() {
+    int busy = 0;
+    for (long word : words) {
+      busy += Long.bitCount(word);
+    }
+    return MINUTES_PER_DAY - busy;
+  }
+
+  /**
+   * Returns the free slots of at least {@code duration} minutes, in chronological order.
+   */
+  Collection<TimeRange> findAvailableTimes(long duration) {
+    List<TimeRange> availableTimes = new ArrayList<>();
+    int minute = nextFree(0);
+    while (minute < MINUTES_PER_DAY) {
+      int busy = nextBusy(minute);
+      FreeSlots.addIfLongEnough(minute, busy, duration, availableTimes);
+      minute = nextFree(busy);
+    }
+    return availableTimes;
+  }
+
+  /** Returns the backing words. Bit {@code m % 64} of word {@code m / 64} is minute {@code m}. */
+  long[] words() {
+    return words;
+  }
+
+  /**
+   * Returns the first minute at or after {@code minute} whose bit is set in
+   * {@code word ^ invert}. Passing an {@code invert} of zero finds busy minutes, and passing all
+   * ones finds free minutes.
+   */
+  private int nextMatching(int minute, long invert) {
+    if (minute >= MINUTES_PER_DAY) {
+      return MINUTES_PER_DAY;
+    }
+
+    int index = minute / Long.SIZE;
+    long word = (words[index] ^ invert) & (-1L << (minute % Long.SIZE));
+    while (word == 0) {
+      if (++index == WORDS) {
+        return MINUTES_PER_DAY;
+      }
+      word = words[index] ^ invert;
+    }
+    return Math.min(index * Long.SIZE + Long.numberOfTrailingZeros(word), MINUTES_PER_DAY);
+  }
+}
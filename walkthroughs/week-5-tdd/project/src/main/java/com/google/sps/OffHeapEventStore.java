@@ -0,0 +1,313 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * An append-only event store that keeps every event in direct (off-heap) {@link ByteBuffer}s, so
+ * the garbage collector never has to trace millions of {@link Event}s and attendee sets. Each event
+ * is a fixed-size record of start, duration, title location and attendee-ID list location; titles
+ * and attendee names are stored once as UTF-8 bytes, and attendees are referred to by int IDs.
+ *
+ * <p>The store is a read-only {@code Collection<Event>}, so it can be passed anywhere events are
+ * expected, though iterating it that way creates an {@link Event} per element. Hot paths such as
+ * {@link FindMeetingQuery#query(OffHeapEventStore, MeetingRequest)} instead read the records in
+ * place through a reusable {@link Cursor}. The only per-calendar heap data is the map from attendee
+ * name to ID, which grows with the number of people rather than the number of events.
+ *
+ * <p>Stores are not thread-safe for writes; readers may run concurrently with each other.
+ */
+public final class OffHeapEventStore extends AbstractCollection<Event> {
+  // Record layout, in bytes.
+  private static final int START = 0;
+  private static final int DURATION = 4;
+  private static final int TITLE_OFFSET = 8;
+  private static final int TITLE_LENGTH = 12;
+  private static final int ATTENDEES_OFFSET = 16;
+  private static final int ATTENDEE_COUNT = 20;
+  private static final int RECORD_BYTES = 24;
+
+  // Each attendee name is stored as its offset and length in the string arena.
+  private static final int NAME_BYTES = 8;
+
+  private static final int INITIAL_CAPACITY = 4096;
+
+  private ByteBuffer records = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+  private ByteBuffer attendeeIds = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+  private ByteBuffer strings = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+  private ByteBuffer names = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+  private final Map<String, Integer> idsByName = new HashMap<>();
+  private int size;
+
+  /**
+   * Creates a store containing {@code events}.
+   */
+  public static OffHeapEventStore of(Collection<Event> events) {
+    OffHeapEventStore store = new OffHeapEventStore();
+    for (Event event : events) {
+      store.add(event);
+    }
+    return store;
+  }
+
+  /**
+   * Appends {@code event} to the store. Always returns true.
+   */
+  @Override
+  public boolean add(Event event) {
+    int titleOffset = strings.position();
+    int titleLength = putString(event.getTitle());
+
+    records = ensureRemaining(records, RECORD_BYTES);
+    attendeeIds = ensureRemaining(attendeeIds, event.getAttendees().size() * Integer.BYTES);
+    int attendeesOffset = attendeeIds.position();
+    for (String attendee : event.getAttendees()) {
+      attendeeIds.putInt(idOf(attendee));
+    }
+
+    records.putInt(event.getWhen().start())
+        .putInt(event.getWhen().duration())
+        .putInt(titleOffset)
+        .putInt(titleLength)
+        .putInt(attendeesOffset)
+        .putInt(event.getAttendees().size());
+    size++;
+    return true;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the ID of {@code attendee}, or -1 if no event in the store has that attendee.
+   */
+  public int getAttendeeId(String attendee) {
+    return idsByName.getOrDefault(attendee, -1);
+  }
+
+  /**
+   * Returns the IDs of those of {@code attendees} that attend at least one event in the store.
+   */
+  BitSet getAttendeeIds(Collection<String> attendees) {
+    BitSet ids = new BitSet();
+    for (String attendee : attendees) {
+      int id = getAttendeeId(attendee);
+      if (id >= 0) {
+        ids.set(id);
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Returns a new cursor positioned before the first event.
+   */
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  /**
+   * Returns an iterator that creates an {@link Event} for each record.
+   */
+  @Override
+  public Iterator<Event> iterator() {
+    Cursor cursor = cursor();
+    return new Iterator<Event>() {
+      @Override
+      public boolean hasNext() {
+        return cursor.index + 1 < size;
+      }
+
+      @Override
+      public Event next() {
+        if (!cursor.next()) {
+          throw new NoSuchElementException();
+        }
+        return cursor.toEvent();
+      }
+    };
+  }
+
+  /**
+   * A flyweight over the records of the store. It moves from record to record without creating
+   * objects; only {@link #getTitle()}, {@link #getAttendee(int)} and {@link #toEvent()} allocate.
+   */
+  public final class Cursor {
+    private int index = -1;
+    private int base;
+
+    private Cursor() {}
+
+    /**
+     * Moves to the next event. Returns false when there are no more.
+     */
+    public boolean next() {
+      if (index + 1 >= size) {
+        return false;
+      }
+      index++;
+      base = index * RECORD_BYTES;
+      return true;
+    }
+
+    /**
+     * Moves to the event at {@code index}, in the order events were added.
+     */
+    public void moveTo(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("No event " + index);
+      }
+      this.index = index;
+      this.base = index * RECORD_BYTES;
+    }
+
+    /**
+     * Returns the start of the current event, in minutes since the start of the day.
+     */
+    public int getStart() {
+      return records.getInt(base + START);
+    }
+
+    /**
+     * Returns the duration of the current event, in minutes.
+     */
+    public int getDuration() {
+      return records.getInt(base + DURATION);
+    }
+
+    /**
+     * Returns the (exclusive) end of the current event.
+     */
+    public int getEnd() {
+      return getStart() + getDuration();
+    }
+
+    /**
+     * Returns the title of the current event.
+     */
+    public String getTitle() {
+      return getString(records.getInt(base + TITLE_OFFSET), records.getInt(base + TITLE_LENGTH));
+    }
+
+    /**
+     * Returns the number of attendees of the current event.
+     */
+    public int getAttendeeCount() {
+      return records.getInt(base + ATTENDEE_COUNT);
+    }
+
+    /**
+     * Returns the ID of the {@code i}th attendee of the current event.
+     */
+    public int getAttendeeId(int i) {
+      return attendeeIds.getInt(records.getInt(base + ATTENDEES_OFFSET) + i * Integer.BYTES);
+    }
+
+    /**
+     * Returns the name of the {@code i}th attendee of the current event.
+     */
+    public String getAttendee(int i) {
+      int id = getAttendeeId(i);
+      return getString(names.getInt(id * NAME_BYTES), names.getInt(id * NAME_BYTES + 4));
+    }
+
+    /**
+     * Returns whether any attendee of the current event has an ID in {@code ids}.
+     */
+    public boolean hasAttendeeIn(BitSet ids) {
+      int offset = records.getInt(base + ATTENDEES_OFFSET);
+      int count = getAttendeeCount();
+      for (int i = 0; i < count; i++) {
+        if (ids.get(attendeeIds.getInt(offset + i * Integer.BYTES))) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Returns a heap copy of the current event.
+     */
+    public Event toEvent() {
+      List<String> attendees = new ArrayList<>(getAttendeeCount());
+      for (int i = 0; i < getAttendeeCount(); i++) {
+        attendees.add(getAttendee(i));
+      }
+      return new Event(getTitle(), TimeRange.fromStartDuration(getStart(), getDuration()),
+          attendees);
+    }
+  }
+
+  private int idOf(String attendee) {
+    Integer id = idsByName.get(attendee);
+    if (id != null) {
+      return id;
+    }
+
+    int offset = strings.position();
+    int length = putString(attendee);
+    names = ensureRemaining(names, NAME_BYTES);
+    names.putInt(offset).putInt(length);
+    int newId = idsByName.size();
+    idsByName.put(attendee, newId);
+    return newId;
+  }
+
+  private int putString(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    strings = ensureRemaining(strings, bytes.length);
+    strings.put(bytes);
+    return bytes.length;
+  }
+
+  private String getString(int offset, int length) {
+    byte[] bytes = new byte[length];
+    // Absolute reads through a duplicate, so concurrent readers don't share a position.
+    ByteBuffer view = strings.duplicate();
+    view.position(offset);
+    view.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns {@code buffer}, or a copy with at least double the capacity if fewer than
+   * {@code bytes} bytes remain. The old buffer's memory is released when it is collected.
+   */
+  private static ByteBuffer ensureRemaining(ByteBuffer buffer, int bytes) {
+    if (buffer.remaining() >= bytes) {
+      return buffer;
+    }
+
+    long needed = (long) buffer.position() + bytes;
+    int capacity = (int) Math.min(Integer.MAX_VALUE, Math.max(needed, 2L * buffer.capacity()));
+    ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+    buffer.flip();
+    grown.put(buffer);
+    return grown;
+  }
+}
@@ -0,0 +1,154 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A calendar split across several {@link CalendarShard}s by attendee, for calendars too big for
+ * one JVM. Attendees are assigned to shards by consistent hashing, and every event is stored on
+ * each shard that owns at least one of its attendees.
+ *
+ * <p>A query asks every involved shard, in parallel and once, for a busy bitmap of its own
+ * attendees; the coordinator then ORs the bitmaps and scans them for gaps. See
+ * {@link FindMeetingQuery#query(PartitionedCalendar, MeetingRequest)}.
+ */
+public final class PartitionedCalendar {
+  private final List<CalendarShard> shards;
+  private final ConsistentHashRing ring;
+
+  /**
+   * Creates a calendar over {@code shards}. The shards must be empty, or already hold the events
+   * this calendar would have sent them; the order of the shards decides which attendees they own.
+   */
+  public PartitionedCalendar(List<CalendarShard> shards) {
+    this.shards = new ArrayList<>(shards);
+    this.ring = new ConsistentHashRing(shards.size());
+  }
+
+  /**
+   * Returns the index of the shard that owns {@code attendee}.
+   */
+  public int shardOf(String attendee) {
+    return ring.nodeFor(attendee);
+  }
+
+  /**
+   * Queues {@code event} to be added. See {@link #submit(Collection)}.
+   */
+  public CompletableFuture<Void> add(Event event) {
+    return submit(Arrays.asList(EventMutation.add(event)));
+  }
+
+  /**
+   * Sends each of {@code mutations} to the shards of the attendees it involves. An update that
+   * changes attendees becomes a removal on shards that no longer own any of them and an addition
+   * on shards that newly do. The future completes when every shard has applied its part.
+   */
+  public CompletableFuture<Void> submit(Collection<EventMutation> mutations) {
+    List<List<EventMutation>> perShard = new ArrayList<>();
+    for (int i = 0; i < shards.size(); i++) {
+      perShard.add(new ArrayList<>());
+    }
+
+    for (EventMutation mutation : mutations) {
+      Set<Integer> before = shardsOf(mutation.getEvent().getAttendees());
+      switch (mutation.getType()) {
+        case ADD:
+        case REMOVE:
+          for (int shard : before) {
+            perShard.get(shard).add(mutation);
+          }
+          break;
+        case UPDATE:
+          Set<Integer> after = shardsOf(mutation.getReplacement().getAttendees());
+          for (int shard : before) {
+            perShard.get(shard).add(after.contains(shard)
+                ? mutation : EventMutation.remove(mutation.getEvent()));
+          }
+          for (int shard : after) {
+            if (!before.contains(shard)) {
+              perShard.get(shard).add(EventMutation.add(mutation.getReplacement()));
+            }
+          }
+          break;
+      }
+    }
+
+    List<CompletableFuture<Void>> applied = new ArrayList<>();
+    for (int i = 0; i < shards.size(); i++) {
+      if (!perShard.get(i).isEmpty()) {
+        applied.add(shards.get(i).apply(perShard.get(i)));
+      }
+    }
+    return CompletableFuture.allOf(applied.toArray(new CompletableFuture<?>[0]));
+  }
+
+  /**
+   * Returns the busy bitmaps of {@code attendeeSets}, each combined over all shards. Every shard
+   * that owns one of the attendees is asked exactly once, and all shards are asked in parallel.
+   */
+  List<MinuteBitmap> getBusyBitmaps(List<Collection<String>> attendeeSets) {
+    List<List<Collection<String>>> perShard = new ArrayList<>();
+    for (int i = 0; i < shards.size(); i++) {
+      List<Collection<String>> sets = new ArrayList<>();
+      for (int set = 0; set < attendeeSets.size(); set++) {
+        sets.add(new ArrayList<>());
+      }
+      perShard.add(sets);
+    }
+    boolean[] involved = new boolean[shards.size()];
+    for (int set = 0; set < attendeeSets.size(); set++) {
+      for (String attendee : attendeeSets.get(set)) {
+        int shard = shardOf(attendee);
+        perShard.get(shard).get(set).add(attendee);
+        involved[shard] = true;
+      }
+    }
+
+    List<CompletableFuture<List<long[]>>> replies = new ArrayList<>();
+    for (int i = 0; i < shards.size(); i++) {
+      if (involved[i]) {
+        replies.add(shards.get(i).getBusyWords(perShard.get(i)));
+      }
+    }
+
+    List<MinuteBitmap> combined = new ArrayList<>();
+    for (int set = 0; set < attendeeSets.size(); set++) {
+      combined.add(new MinuteBitmap());
+    }
+    for (CompletableFuture<List<long[]>> reply : replies) {
+      List<long[]> words = reply.join();
+      for (int set = 0; set < attendeeSets.size(); set++) {
+        combined.get(set).or(words.get(set));
+      }
+    }
+    return combined;
+  }
+
+  private Set<Integer> shardsOf(Collection<String> attendees) {
+    Set<Integer> owners = new HashSet<>();
+    for (String attendee : attendees) {
+      owners.add(shardOf(attendee));
+    }
+    return owners;
+  }
+}
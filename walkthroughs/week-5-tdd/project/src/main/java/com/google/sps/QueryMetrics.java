@@ -0,0 +1,158 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide timings and counters for availability queries. Each {@link Phase} of finding
+ * available times has its own {@link LatencyHistogram}, and counters track how many events were
+ * scanned, how many busy ranges were merged and how many slots were returned.
+ *
+ * <p>Metrics are off unless the {@code calendar.metrics} system property is {@code true} or
+ * {@link #setEnabled} turns them on. While they are off, every hook below is a single,
+ * well-predicted branch on that flag, and nothing is allocated or timed. Hooks are used like this:
+ *
+ * <pre>
+ *   long started = QueryMetrics.start();
+ *   ... filter ...
+ *   started = QueryMetrics.record(Phase.FILTER, started);
+ *   ... sort ...
+ *   QueryMetrics.record(Phase.SORT, started);
+ * </pre>
+ */
+public final class QueryMetrics {
+  /** The steps that finding available times is split into. */
+  public enum Phase {
+    /** Picking the busy times of the requested attendees out of the calendar. */
+    FILTER,
+    /** Sorting busy times by start. */
+    SORT,
+    /** Combining overlapping busy times. */
+    MERGE,
+    /** Turning the gaps between busy times into slots. */
+    GAPS
+  }
+
+  private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[Phase.values().length];
+  private static final LongAdder EVENTS_SCANNED = new LongAdder();
+  private static final LongAdder RANGES_MERGED = new LongAdder();
+  private static final LongAdder SLOTS_PRODUCED = new LongAdder();
+
+  private static volatile boolean enabled = Boolean.getBoolean("calendar.metrics");
+
+  static {
+    for (int i = 0; i < HISTOGRAMS.length; i++) {
+      HISTOGRAMS[i] = new LatencyHistogram();
+    }
+  }
+
+  private QueryMetrics() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns whether metrics are being recorded.
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Starts or stops recording metrics. Metrics recorded so far are kept.
+   */
+  public static void setEnabled(boolean on) {
+    enabled = on;
+  }
+
+  /**
+   * Returns the latencies recorded for {@code phase}, in nanoseconds.
+   */
+  public static LatencyHistogram getHistogram(Phase phase) {
+    return HISTOGRAMS[phase.ordinal()];
+  }
+
+  /**
+   * Returns how many events queries have looked at.
+   */
+  public static long getEventsScanned() {
+    return EVENTS_SCANNED.sum();
+  }
+
+  /**
+   * Returns how many busy ranges queries have merged.
+   */
+  public static long getRangesMerged() {
+    return RANGES_MERGED.sum();
+  }
+
+  /**
+   * Returns how many available slots queries have returned.
+   */
+  public static long getSlotsProduced() {
+    return SLOTS_PRODUCED.sum();
+  }
+
+  /**
+   * Forgets every recorded latency and zeroes the counters.
+   */
+  public static void reset() {
+    for (LatencyHistogram histogram : HISTOGRAMS) {
+      histogram.reset();
+    }
+    EVENTS_SCANNED.reset();
+    RANGES_MERGED.reset();
+    SLOTS_PRODUCED.reset();
+  }
+
+  /**
+   * Returns the time to pass to {@link #record}, or 0 if metrics are off.
+   */
+  static long start() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Records the time since {@code started} against {@code phase} and returns the current time, so
+   * that it can start the next phase. Does nothing and returns 0 if metrics are off, or if they
+   * were off when {@code started} was taken.
+   */
+  static long record(Phase phase, long started) {
+    if (!enabled || started == 0) {
+      return 0;
+    }
+    long now = System.nanoTime();
+    HISTOGRAMS[phase.ordinal()].record(now - started);
+    return now;
+  }
+
+  static void countEventsScanned(int count) {
+    if (enabled) {
+      EVENTS_SCANNED.add(count);
+    }
+  }
+
+  static void countRangesMerged(int count) {
+    if (enabled) {
+      RANGES_MERGED.add(count);
+    }
+  }
+
+  static void countSlotsProduced(int count) {
+    if (enabled) {
+      SLOTS_PRODUCED.add(count);
+    }
+  }
+}
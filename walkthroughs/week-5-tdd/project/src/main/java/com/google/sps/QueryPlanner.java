@@ -0,0 +1,130 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Chooses the cheapest {@link AvailabilityEngine} for each query. Every engine estimates how much
+ * work a query would take from its {@link QueryStatistics}; the planner turns those estimates into
+ * nanoseconds using a per-engine cost that it keeps calibrating against measured running times.
+ * The chosen plan and its measured cost are logged at {@link Level#FINE}.
+ *
+ * <p>Planners are thread-safe and meant to be shared, so that calibration carries over between
+ * queries.
+ */
+public final class QueryPlanner {
+  private static final Logger logger = Logger.getLogger(QueryPlanner.class.getName());
+
+  // Starting guess for how long one unit of estimated work takes, before any measurements.
+  private static final double INITIAL_NANOS_PER_UNIT = 10.0;
+
+  // Weight of the newest measurement in each engine's moving average.
+  private static final double SMOOTHING = 0.05;
+
+  private static final QueryPlanner DEFAULT = adaptive();
+
+  private final List<Candidate> candidates = new ArrayList<>();
+
+  private QueryPlanner(Collection<AvailabilityEngine> engines) {
+    for (AvailabilityEngine engine : engines) {
+      candidates.add(new Candidate(engine));
+    }
+  }
+
+  /**
+   * Returns the planner shared by every {@link FindMeetingQuery} created without one.
+   */
+  public static QueryPlanner getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Creates a planner that chooses between sort-merge, bitmap and interval tree engines.
+   */
+  public static QueryPlanner adaptive() {
+    return new QueryPlanner(
+        Arrays.asList(new SortMergeEngine(), new BitmapEngine(), new IntervalTreeEngine()));
+  }
+
+  /**
+   * Creates a planner that always uses {@code engine}.
+   */
+  public static QueryPlanner fixed(AvailabilityEngine engine) {
+    return new QueryPlanner(Arrays.asList(engine));
+  }
+
+  /**
+   * Returns the engine with the lowest expected cost for a query with {@code statistics}.
+   */
+  public AvailabilityEngine plan(QueryStatistics statistics) {
+    return choose(statistics).engine;
+  }
+
+  /**
+   * Answers a query with the cheapest engine, measuring and logging how long it took.
+   */
+  Collection<TimeRange> execute(QueryStatistics statistics, List<TimeRange> busyTimes,
+      long duration) {
+    Candidate chosen = choose(statistics);
+    double work = chosen.engine.estimateWork(statistics);
+
+    long startNanos = System.nanoTime();
+    Collection<TimeRange> availableTimes = chosen.engine.findAvailableTimes(busyTimes, duration);
+    long elapsedNanos = System.nanoTime() - startNanos;
+
+    chosen.record(work, elapsedNanos);
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine(String.format("plan=%s estimated=%.0fns measured=%dns %s",
+          chosen.engine.getName(), work * chosen.nanosPerUnit, elapsedNanos, statistics));
+    }
+    return availableTimes;
+  }
+
+  private Candidate choose(QueryStatistics statistics) {
+    Candidate best = null;
+    double bestCost = Double.POSITIVE_INFINITY;
+    for (Candidate candidate : candidates) {
+      double cost = candidate.engine.estimateWork(statistics) * candidate.nanosPerUnit;
+      if (cost < bestCost) {
+        best = candidate;
+        bestCost = cost;
+      }
+    }
+    return best;
+  }
+
+  /** An engine together with its calibrated cost per unit of estimated work. */
+  private static final class Candidate {
+    private final AvailabilityEngine engine;
+    // Updated without locking: a lost update only delays calibration slightly.
+    private volatile double nanosPerUnit = INITIAL_NANOS_PER_UNIT;
+
+    private Candidate(AvailabilityEngine engine) {
+      this.engine = engine;
+    }
+
+    private void record(double work, long elapsedNanos) {
+      if (work > 0) {
+        nanosPerUnit += SMOOTHING * (elapsedNanos / work - nanosPerUnit);
+      }
+    }
+  }
+}
@@ -0,0 +1,48 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The available times found by a query that had a time budget, and whether the budget ran out
+ * before the query finished.
+ */
+public final class QueryResult {
+  private final Collection<TimeRange> times;
+  private final boolean partial;
+
+  QueryResult(Collection<TimeRange> times, boolean partial) {
+    this.times = times;
+    this.partial = partial;
+  }
+
+  /**
+   * Returns a read-only collection of the available times found. If the result is partial, these
+   * are only free according to the events that were looked at before the budget ran out, so they
+   * may still conflict with events that weren't.
+   */
+  public Collection<TimeRange> getTimes() {
+    return Collections.unmodifiableCollection(times);
+  }
+
+  /**
+   * Returns whether the time budget ran out before every relevant event was looked at.
+   */
+  public boolean isPartial() {
+    return partial;
+  }
+}
@@ -0,0 +1,103 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * Cheap statistics about one availability query, gathered while its events are scanned. The
+ * {@link QueryPlanner} uses them to pick an {@link AvailabilityEngine}.
+ */
+public final class QueryStatistics {
+  private final int requestSize;
+  private int eventCount;
+  private long attendeeCount;
+  private int busyCount;
+  private long busyMinutes;
+  private int horizonStart = Integer.MAX_VALUE;
+  private int horizonEnd = Integer.MIN_VALUE;
+
+  /**
+   * Creates statistics for a query over {@code requestSize} attendees.
+   */
+  public QueryStatistics(int requestSize) {
+    this.requestSize = requestSize;
+  }
+
+  /**
+   * Records that {@code event} was looked at.
+   */
+  void recordScannedEvent(Event event) {
+    eventCount++;
+    attendeeCount += event.getAttendees().size();
+  }
+
+  /**
+   * Records that {@code busy} is a busy time for at least one attendee.
+   */
+  void recordBusyTime(TimeRange busy) {
+    busyCount++;
+    busyMinutes += busy.duration();
+    horizonStart = Math.min(horizonStart, busy.start());
+    horizonEnd = Math.max(horizonEnd, busy.end());
+  }
+
+  /**
+   * Returns the number of attendees in the request.
+   */
+  public int getRequestSize() {
+    return requestSize;
+  }
+
+  /**
+   * Returns the number of events that were scanned.
+   */
+  public int getEventCount() {
+    return eventCount;
+  }
+
+  /**
+   * Returns the average number of attendees of the scanned events.
+   */
+  public double getAverageAttendeesPerEvent() {
+    return eventCount == 0 ? 0 : attendeeCount / (double) eventCount;
+  }
+
+  /**
+   * Returns the number of busy times found for the request's attendees.
+   */
+  public int getBusyCount() {
+    return busyCount;
+  }
+
+  /**
+   * Returns the total length of all busy times, counting overlapping minutes more than once.
+   */
+  public long getBusyMinutes() {
+    return busyMinutes;
+  }
+
+  /**
+   * Returns the number of minutes between the start of the earliest busy time and the end of the
+   * latest one.
+   */
+  public int getHorizon() {
+    return busyCount == 0 ? 0 : horizonEnd - horizonStart;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("events=%d avgAttendees=%.1f requestSize=%d busy=%d horizon=%d",
+        eventCount, getAverageAttendeesPerEvent(), requestSize, busyCount, getHorizon());
+  }
+}
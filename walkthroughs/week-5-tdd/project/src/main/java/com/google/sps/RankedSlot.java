@@ -0,0 +1,49 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * A candidate meeting slot together with how well it matches the caller's
+ * {@link SlotPreferences}. Higher scores are better. Ranked slots are considered read-only.
+ */
+public final class RankedSlot {
+  private final TimeRange when;
+  private final double score;
+
+  RankedSlot(TimeRange when, double score) {
+    this.when = when;
+    this.score = score;
+  }
+
+  /**
+   * Returns the time of the meeting, which is exactly as long as the requested duration.
+   */
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  /**
+   * Returns the score of this slot. Scores are only meaningful relative to other slots for the
+   * same request.
+   */
+  public double getScore() {
+    return score;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s (%.3f)", when, score);
+  }
+}
@@ -0,0 +1,165 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Describes on which days a {@link RecurringEvent} takes place: every {@code interval} days or
+ * weeks from its first day, optionally limited to a number of occurrences or a last day, and
+ * skipping any excepted days. Days are numbered consecutively, for example as days since the
+ * epoch. Rules are considered read-only; the {@code with} methods return modified copies.
+ */
+public final class RecurrenceRule {
+  /** How often the interval of a rule is counted in. */
+  public enum Frequency {
+    DAILY(1),
+    WEEKLY(7);
+
+    private final int days;
+
+    Frequency(int days) {
+      this.days = days;
+    }
+  }
+
+  private final Frequency frequency;
+  private final int interval;
+  private final int count;
+  private final int untilDay;
+  private final Set<Integer> exceptions = new HashSet<>();
+
+  /**
+   * Creates a rule.
+   *
+   * @param frequency Whether the interval is counted in days or weeks. Must be non-null.
+   * @param interval The number of days or weeks between occurrences. Must be positive.
+   * @param count The maximum number of occurrences, or zero for no limit.
+   * @param untilDay The last day an occurrence may fall on, inclusive.
+   * @param exceptions Days on which an occurrence is cancelled. Must be non-null.
+   */
+  public RecurrenceRule(Frequency frequency, int interval, int count, int untilDay,
+      Collection<Integer> exceptions) {
+    if (frequency == null) {
+      throw new IllegalArgumentException("frequency cannot be null");
+    }
+
+    if (interval <= 0) {
+      throw new IllegalArgumentException("interval must be positive");
+    }
+
+    if (count < 0) {
+      throw new IllegalArgumentException("count cannot be negative");
+    }
+
+    if (exceptions == null) {
+      throw new IllegalArgumentException("exceptions cannot be null. Use empty array instead.");
+    }
+
+    this.frequency = frequency;
+    this.interval = interval;
+    this.count = count;
+    this.untilDay = untilDay;
+    this.exceptions.addAll(exceptions);
+  }
+
+  /**
+   * Returns an unlimited rule that repeats every {@code interval} days.
+   */
+  public static RecurrenceRule daily(int interval) {
+    return new RecurrenceRule(
+        Frequency.DAILY, interval, 0, Integer.MAX_VALUE, Collections.emptySet());
+  }
+
+  /**
+   * Returns an unlimited rule that repeats every {@code interval} weeks.
+   */
+  public static RecurrenceRule weekly(int interval) {
+    return new RecurrenceRule(
+        Frequency.WEEKLY, interval, 0, Integer.MAX_VALUE, Collections.emptySet());
+  }
+
+  /**
+   * Returns a copy of this rule that stops after {@code count} occurrences.
+   */
+  public RecurrenceRule withCount(int count) {
+    return new RecurrenceRule(frequency, interval, count, untilDay, exceptions);
+  }
+
+  /**
+   * Returns a copy of this rule whose last occurrence is on or before {@code untilDay}.
+   */
+  public RecurrenceRule withUntilDay(int untilDay) {
+    return new RecurrenceRule(frequency, interval, count, untilDay, exceptions);
+  }
+
+  /**
+   * Returns a copy of this rule that also skips each of {@code days}.
+   */
+  public RecurrenceRule withExceptions(Integer... days) {
+    Set<Integer> allExceptions = new HashSet<>(exceptions);
+    allExceptions.addAll(Arrays.asList(days));
+    return new RecurrenceRule(frequency, interval, count, untilDay, allExceptions);
+  }
+
+  /**
+   * Returns the number of days between consecutive occurrences.
+   */
+  public int getStepDays() {
+    return frequency.days * interval;
+  }
+
+  /**
+   * Returns whether a series starting on {@code firstDay} has an occurrence on {@code day}. This
+   * takes constant time, however far {@code day} is from {@code firstDay}.
+   */
+  public boolean occursOn(int firstDay, int day) {
+    if (day < firstDay || day > untilDay || exceptions.contains(day)) {
+      return false;
+    }
+
+    long offset = (long) day - firstDay;
+    int step = getStepDays();
+    if (offset % step != 0) {
+      return false;
+    }
+    return count == 0 || offset / step < count;
+  }
+
+  /**
+   * Returns the first day on or after {@code day} with an occurrence (ignoring exceptions), or
+   * {@code Long.MAX_VALUE} if there is none.
+   */
+  long nextOccurrenceDay(int firstDay, long day) {
+    int step = getStepDays();
+    long index = day <= firstDay ? 0 : (day - firstDay + step - 1) / step;
+    long next = firstDay + index * step;
+    if ((count != 0 && index >= count) || next > untilDay) {
+      return Long.MAX_VALUE;
+    }
+    return next;
+  }
+
+  /**
+   * Returns whether {@code day} is an excepted day.
+   */
+  boolean isException(long day) {
+    return exceptions.contains((int) day);
+  }
+}
@@ -0,0 +1,112 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A series of identical meetings held at the same time of day on the days given by a
+ * {@link RecurrenceRule}, such as a daily stand-up. Occurrences are never materialized: every
+ * occurrence shares the same {@link Event}, and which days have one is worked out on demand.
+ * Recurring events are considered read-only.
+ */
+public final class RecurringEvent {
+  private final Event occurrence;
+  private final int firstDay;
+  private final RecurrenceRule rule;
+
+  /**
+   * Creates a new recurring event.
+   *
+   * @param title The human-readable name for each occurrence. Must be non-null.
+   * @param when The time of day each occurrence takes place. Must be non-null.
+   * @param attendees The people attending every occurrence. Must be non-null.
+   * @param firstDay The day of the first occurrence.
+   * @param rule The days on which the event repeats. Must be non-null.
+   */
+  public RecurringEvent(String title, TimeRange when, Collection<String> attendees, int firstDay,
+      RecurrenceRule rule) {
+    if (rule == null) {
+      throw new IllegalArgumentException("rule cannot be null");
+    }
+
+    this.occurrence = new Event(title, when, attendees);
+    this.firstDay = firstDay;
+    this.rule = rule;
+  }
+
+  /**
+   * Returns the event every occurrence is an instance of.
+   */
+  public Event getOccurrence() {
+    return occurrence;
+  }
+
+  /**
+   * Returns the day of the first occurrence.
+   */
+  public int getFirstDay() {
+    return firstDay;
+  }
+
+  /**
+   * Returns the rule deciding which days have an occurrence.
+   */
+  public RecurrenceRule getRule() {
+    return rule;
+  }
+
+  /**
+   * Returns whether there is an occurrence on {@code day}.
+   */
+  public boolean occursOn(int day) {
+    return rule.occursOn(firstDay, day);
+  }
+
+  /**
+   * Returns the days with an occurrence from {@code fromDay} to {@code toDay} (both inclusive), in
+   * order. The days are computed one at a time as the iterator advances.
+   */
+  public PrimitiveIterator.OfInt occurrenceDays(int fromDay, int toDay) {
+    return new PrimitiveIterator.OfInt() {
+      private long next = advance(fromDay);
+
+      @Override
+      public boolean hasNext() {
+        return next <= toDay;
+      }
+
+      @Override
+      public int nextInt() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        int day = (int) next;
+        next = advance(next + 1);
+        return day;
+      }
+
+      private long advance(long day) {
+        long candidate = rule.nextOccurrenceDay(firstDay, day);
+        while (candidate <= toDay && rule.isException(candidate)) {
+          candidate = rule.nextOccurrenceDay(firstDay, candidate + 1);
+        }
+        return candidate;
+      }
+    };
+  }
+}
@@ -0,0 +1,131 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Holds every {@link RecurringEvent} series in the calendar. Occurrences are expanded on the fly:
+ * {@link #eventsOn(int, Collection)} returns a view that yields a series' shared occurrence only
+ * while being iterated, and only if the series occurs on the queried day. Memory therefore grows
+ * with the number of series, not with the number of occurrences.
+ *
+ * <p>Like {@link CalendarSnapshot}, the series list is copied on write and published through a
+ * volatile reference, so readers never block.
+ */
+public final class RecurringSchedule {
+  private volatile List<RecurringEvent> series = Collections.emptyList();
+
+  /**
+   * Adds {@code recurring} to the schedule.
+   */
+  public synchronized void add(RecurringEvent recurring) {
+    List<RecurringEvent> next = new ArrayList<>(series);
+    next.add(recurring);
+    series = next;
+  }
+
+  /**
+   * Removes {@code recurring} from the schedule. Returns whether it was there.
+   */
+  public synchronized boolean remove(RecurringEvent recurring) {
+    List<RecurringEvent> next = new ArrayList<>(series);
+    boolean removed = next.remove(recurring);
+    series = next;
+    return removed;
+  }
+
+  /**
+   * Returns a read-only list of every series in the schedule.
+   */
+  public List<RecurringEvent> getSeries() {
+    return Collections.unmodifiableList(series);
+  }
+
+  /**
+   * Returns a read-only view of {@code events} followed by the occurrences of every series that
+   * occurs on {@code day}. The series are checked each time the view is iterated, so nothing is
+   * expanded ahead of time; later changes to the schedule do not affect a view already returned.
+   */
+  public Collection<Event> eventsOn(int day, Collection<Event> events) {
+    List<RecurringEvent> current = series;
+    return new AbstractCollection<Event>() {
+      @Override
+      public Iterator<Event> iterator() {
+        return new OccurrenceIterator(day, events.iterator(), current.iterator());
+      }
+
+      @Override
+      public int size() {
+        int size = events.size();
+        for (RecurringEvent recurring : current) {
+          if (recurring.occursOn(day)) {
+            size++;
+          }
+        }
+        return size;
+      }
+    };
+  }
+
+  /** Yields the one-off events, then the occurrences of the series that occur on the day. */
+  private static final class OccurrenceIterator implements Iterator<Event> {
+    private final int day;
+    private final Iterator<Event> events;
+    private final Iterator<RecurringEvent> series;
+    private Event next;
+
+    private OccurrenceIterator(int day, Iterator<Event> events, Iterator<RecurringEvent> series) {
+      this.day = day;
+      this.events = events;
+      this.series = series;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next != null) {
+        return true;
+      }
+      if (events.hasNext()) {
+        next = events.next();
+        return true;
+      }
+      while (series.hasNext()) {
+        RecurringEvent recurring = series.next();
+        if (recurring.occursOn(day)) {
+          next = recurring.getOccurrence();
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public Event next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Event event = next;
+      next = null;
+      return event;
+    }
+  }
+}
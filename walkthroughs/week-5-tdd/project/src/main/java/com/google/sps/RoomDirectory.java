@@ -0,0 +1,194 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The bookable rooms and when each of them is busy. Rooms are indexed by capacity tier, where tier
+ * {@code k} holds the rooms seating from {@code 2^k} to {@code 2^(k+1) - 1} people, and every tier
+ * keeps a bitmap of the minutes when all of its rooms are busy. A search can then skip a whole
+ * tier of rooms with a few word-wide ORs, and only looks at individual rooms in tiers that might
+ * have one free.
+ *
+ * <p>All methods are synchronized, so one directory can be shared between threads.
+ */
+public final class RoomDirectory {
+  private final Map<String, RoomEntry> rooms = new HashMap<>();
+  private final TreeMap<Integer, Tier> tiers = new TreeMap<>();
+
+  /**
+   * Adds {@code room}, initially free all day.
+   *
+   * @throws IllegalArgumentException if there already is a room with the same name
+   */
+  public synchronized void addRoom(Room room) {
+    if (rooms.containsKey(room.getName())) {
+      throw new IllegalArgumentException("Room already exists: " + room.getName());
+    }
+
+    RoomEntry entry = new RoomEntry(room);
+    rooms.put(room.getName(), entry);
+    Tier tier = tiers.computeIfAbsent(tierOf(room.getCapacity()), index -> new Tier());
+    tier.rooms.add(entry);
+    tier.update();
+  }
+
+  /**
+   * Removes the room called {@code name}. Returns whether there was such a room.
+   */
+  public synchronized boolean removeRoom(String name) {
+    RoomEntry entry = rooms.remove(name);
+    if (entry == null) {
+      return false;
+    }
+
+    int index = tierOf(entry.room.getCapacity());
+    Tier tier = tiers.get(index);
+    tier.rooms.remove(entry);
+    if (tier.rooms.isEmpty()) {
+      tiers.remove(index);
+    } else {
+      tier.update();
+    }
+    return true;
+  }
+
+  /**
+   * Returns a read-only copy of every room.
+   */
+  public synchronized Collection<Room> getRooms() {
+    List<Room> all = new ArrayList<>();
+    for (RoomEntry entry : rooms.values()) {
+      all.add(entry.room);
+    }
+    return Collections.unmodifiableList(all);
+  }
+
+  /**
+   * Marks the room called {@code name} as busy during {@code when}.
+   *
+   * @throws IllegalArgumentException if there is no such room
+   */
+  public synchronized void book(String name, TimeRange when) {
+    RoomEntry entry = getEntry(name);
+    entry.bookings.add(when);
+    entry.busy.setBusy(when);
+    tiers.get(tierOf(entry.room.getCapacity())).update();
+  }
+
+  /**
+   * Cancels one booking of the room called {@code name} during exactly {@code when}. Returns
+   * whether there was such a booking.
+   *
+   * @throws IllegalArgumentException if there is no such room
+   */
+  public synchronized boolean release(String name, TimeRange when) {
+    RoomEntry entry = getEntry(name);
+    if (!entry.bookings.remove(when)) {
+      return false;
+    }
+
+    // Bookings may overlap, so rebuild the room's bitmap rather than clearing the range.
+    entry.busy = new MinuteBitmap();
+    for (TimeRange booking : entry.bookings) {
+      entry.busy.setBusy(booking);
+    }
+    tiers.get(tierOf(entry.room.getCapacity())).update();
+    return true;
+  }
+
+  /**
+   * Returns every free time of at least {@code duration} minutes in a room seating at least
+   * {@code capacity} people, during which nobody is busy according to {@code attendeesBusy}.
+   * Slots are ordered by start time, then by room capacity, so the smallest room that fits comes
+   * first.
+   */
+  synchronized List<RoomSlot> findRoomSlots(MinuteBitmap attendeesBusy, int capacity,
+      long duration) {
+    List<RoomSlot> slots = new ArrayList<>();
+    for (Tier tier : tiers.tailMap(tierOf(Math.max(capacity, 1)), true).values()) {
+      MinuteBitmap tierBusy = new MinuteBitmap();
+      tierBusy.or(attendeesBusy);
+      tierBusy.or(tier.allBusy);
+      if (tierBusy.firstFit(duration) < 0) {
+        // Whenever the attendees are free, every room in this tier is taken.
+        continue;
+      }
+
+      for (RoomEntry entry : tier.rooms) {
+        if (entry.room.getCapacity() < capacity) {
+          continue;
+        }
+        MinuteBitmap busy = new MinuteBitmap();
+        busy.or(tierBusy);
+        busy.or(entry.busy);
+        for (TimeRange window : busy.findAvailableTimes(duration)) {
+          slots.add(new RoomSlot(window, entry.room));
+        }
+      }
+    }
+
+    slots.sort(Comparator.comparing(RoomSlot::getWhen, TimeRange.ORDER_BY_START)
+        .thenComparingInt(slot -> slot.getRoom().getCapacity())
+        .thenComparing(slot -> slot.getRoom().getName()));
+    return slots;
+  }
+
+  private RoomEntry getEntry(String name) {
+    RoomEntry entry = rooms.get(name);
+    if (entry == null) {
+      throw new IllegalArgumentException("No such room: " + name);
+    }
+    return entry;
+  }
+
+  private static int tierOf(int capacity) {
+    return Integer.SIZE - 1 - Integer.numberOfLeadingZeros(capacity);
+  }
+
+  /** A room and its bookings. */
+  private static final class RoomEntry {
+    private final Room room;
+    private final List<TimeRange> bookings = new ArrayList<>();
+    private MinuteBitmap busy = new MinuteBitmap();
+
+    private RoomEntry(Room room) {
+      this.room = room;
+    }
+  }
+
+  /** The rooms of one capacity tier, and the minutes when all of them are busy. */
+  private static final class Tier {
+    private final List<RoomEntry> rooms = new ArrayList<>();
+    private MinuteBitmap allBusy = new MinuteBitmap();
+
+    private void update() {
+      MinuteBitmap busy = new MinuteBitmap();
+      busy.setBusy(TimeRange.WHOLE_DAY);
+      for (RoomEntry entry : rooms) {
+        busy.and(entry.busy);
+      }
+      allBusy = busy;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * A time when all the requested attendees and a room are free. Room slots are considered
+ * read-only.
+ */
+public final class RoomSlot {
+  private final TimeRange when;
+  private final Room room;
+
+  RoomSlot(TimeRange when, Room room) {
+    this.when = when;
+    this.room = room;
+  }
+
+  /**
+   * Returns the free time, which is at least as long as the requested meeting.
+   */
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  /**
+   * Returns the room that is free for the whole of {@link #getWhen()}.
+   */
+  public Room getRoom() {
+    return room;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof RoomSlot && when.equals(((RoomSlot) other).when)
+        && room.equals(((RoomSlot) other).room);
+  }
+
+  @Override
+  public int hashCode() {
+    return when.hashCode() * 31 + room.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return when + " in " + room;
+  }
+}
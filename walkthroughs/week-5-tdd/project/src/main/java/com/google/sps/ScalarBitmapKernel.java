@@ -0,0 +1,69 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.List;
+
+/**
+ * The straightforward {@link BitmapKernel}: ORs one bitmap at a time, and walks from each free run
+ * to the next with {@link Long#numberOfTrailingZeros}. Its cost grows with the number of runs,
+ * which is small for requests with few attendees.
+ */
+final class ScalarBitmapKernel implements BitmapKernel {
+  static final ScalarBitmapKernel INSTANCE = new ScalarBitmapKernel();
+
+  private ScalarBitmapKernel() {}
+
+  @Override
+  public void or(long[] into, List<long[]> bitmaps) {
+    for (long[] bitmap : bitmaps) {
+      for (int i = 0; i < into.length; i++) {
+        into[i] |= bitmap[i];
+      }
+    }
+  }
+
+  @Override
+  public void forEachFreeRun(long[] busy, int minutes, long duration, RunConsumer consumer) {
+    int start = nextMatching(busy, minutes, 0, -1L);
+    while (start < minutes) {
+      int end = nextMatching(busy, minutes, start, 0L);
+      if (end - start >= duration) {
+        consumer.accept(start, end);
+      }
+      start = nextMatching(busy, minutes, end, -1L);
+    }
+  }
+
+  /**
+   * Returns the first bit at or after {@code bit} that is set in {@code word ^ invert}, or
+   * {@code minutes} if there is none.
+   */
+  static int nextMatching(long[] words, int minutes, int bit, long invert) {
+    if (bit >= minutes) {
+      return minutes;
+    }
+
+    int index = bit / Long.SIZE;
+    long word = (words[index] ^ invert) & (-1L << (bit % Long.SIZE));
+    while (word == 0) {
+      if (++index == words.length) {
+        return minutes;
+      }
+      word = words[index] ^ invert;
+    }
+    return Math.min(index * Long.SIZE + Long.numberOfTrailingZeros(word), minutes);
+  }
+}
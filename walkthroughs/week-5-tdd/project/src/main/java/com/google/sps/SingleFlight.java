@@ -0,0 +1,75 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent computations of the same key. The first caller for a key runs the
+ * computation; callers that arrive while it is still running wait for it and get the same result
+ * (or the same exception) instead of starting their own. Nothing is kept once a computation
+ * finishes, so this is not a cache: the next caller for that key starts afresh.
+ */
+public final class SingleFlight<K, V> {
+  private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the result of {@code computation}, or of the computation already running for an equal
+   * {@code key}. Unchecked exceptions thrown by the computation are rethrown to every caller that
+   * shared it.
+   */
+  public V run(K key, Supplier<V> computation) {
+    CompletableFuture<V> created = new CompletableFuture<>();
+    CompletableFuture<V> running = inFlight.putIfAbsent(key, created);
+    if (running != null) {
+      return await(running);
+    }
+
+    try {
+      created.complete(computation.get());
+    } catch (RuntimeException | Error e) {
+      created.completeExceptionally(e);
+    } finally {
+      inFlight.remove(key, created);
+    }
+    return await(created);
+  }
+
+  /**
+   * Returns how many computations are currently running.
+   */
+  int inFlightCount() {
+    return inFlight.size();
+  }
+
+  private static <V> V await(CompletableFuture<V> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,71 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A tentative reservation of a time for some attendees, made with {@link SlotHolds#hold}. While a
+ * hold is live no other hold or confirmation can take the same time from any of its attendees.
+ * Holds are considered read-only.
+ */
+public final class SlotHold {
+  private final String id;
+  private final Set<String> attendees = new HashSet<>();
+  private final TimeRange when;
+  private final long expiresAtMillis;
+
+  SlotHold(String id, Collection<String> attendees, TimeRange when, long expiresAtMillis) {
+    this.id = id;
+    this.attendees.addAll(attendees);
+    this.when = when;
+    this.expiresAtMillis = expiresAtMillis;
+  }
+
+  /**
+   * Returns the id to confirm or release the hold with.
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Returns a read-only set of the attendees the time is held for.
+   */
+  public Set<String> getAttendees() {
+    return Collections.unmodifiableSet(attendees);
+  }
+
+  /**
+   * Returns the held time.
+   */
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  /**
+   * Returns when the hold expires, in milliseconds since the epoch.
+   */
+  public long getExpiresAtMillis() {
+    return expiresAtMillis;
+  }
+
+  boolean isLive(long nowMillis) {
+    return nowMillis < expiresAtMillis;
+  }
+}
@@ -0,0 +1,300 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Tentative holds on meeting times, so that a slot returned by a query can't be taken by somebody
+ * else before the event is created. A hold expires after a fixed time-to-live unless it is
+ * confirmed, which turns it into an event in the {@link EventCalendar}.
+ *
+ * <p>Holding and confirming check for conflicts atomically. Each attendee maps to one of a fixed
+ * set of lock stripes, and an operation locks the stripes of all its attendees in ascending order,
+ * so operations on the same attendee are serialized without ever deadlocking, while operations on
+ * attendees in different stripes never contend.
+ */
+public final class SlotHolds {
+  private static final int STRIPES = 256;
+
+  private final EventCalendar calendar;
+  private final long ttlMillis;
+  private final LongSupplier clock;
+  private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+  private final Map<String, SlotHold> holds = new ConcurrentHashMap<>();
+  // Live (or not yet pruned) holds of each attendee. An attendee's entry is only read or written
+  // with the attendee's stripe locked.
+  private final Map<String, List<SlotHold>> holdsByAttendee = new ConcurrentHashMap<>();
+  // Every hold in the order it was made, which is also the order it expires in since all holds
+  // live equally long. Holds stay here until they expire, even once confirmed or released.
+  private final Queue<SlotHold> byExpiry = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Creates holds on {@code calendar} that expire {@code ttl} after they are made.
+   */
+  public SlotHolds(EventCalendar calendar, long ttl, TimeUnit unit) {
+    this(calendar, unit.toMillis(ttl), System::currentTimeMillis);
+  }
+
+  SlotHolds(EventCalendar calendar, long ttlMillis, LongSupplier clock) {
+    if (ttlMillis <= 0) {
+      throw new IllegalArgumentException("ttl must be positive");
+    }
+
+    this.calendar = calendar;
+    this.ttlMillis = ttlMillis;
+    this.clock = clock;
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new ReentrantLock();
+    }
+  }
+
+  /**
+   * Holds {@code when} for {@code attendees}. Returns the new hold, or {@code null} if any of the
+   * attendees already has an event or a live hold that overlaps {@code when}.
+   */
+  public SlotHold hold(Collection<String> attendees, TimeRange when) {
+    removeExpired(clock.getAsLong());
+
+    List<ReentrantLock> locked = lock(attendees);
+    try {
+      long now = clock.getAsLong();
+      if (hasConflict(attendees, when, null, now)) {
+        return null;
+      }
+
+      SlotHold hold =
+          new SlotHold(UUID.randomUUID().toString(), attendees, when, now + ttlMillis);
+      holds.put(hold.getId(), hold);
+      byExpiry.add(hold);
+      addToAttendees(hold);
+      return hold;
+    } finally {
+      unlock(locked);
+    }
+  }
+
+  /**
+   * Turns the hold with id {@code holdId} into an event called {@code title}. Returns the event,
+   * or {@code null} if there is no such hold, it has expired, or an event that overlaps it has been
+   * added to the calendar by other means since it was made. The event is in the calendar's
+   * snapshot by the time this returns. If adding the event fails, the held time is freed and the
+   * exception is thrown.
+   */
+  public Event confirm(String holdId, String title) {
+    SlotHold hold = holds.get(holdId);
+    if (hold == null) {
+      return null;
+    }
+
+    SlotHold confirming;
+    List<ReentrantLock> locked = lock(hold.getAttendees());
+    try {
+      long now = clock.getAsLong();
+      if (holds.remove(holdId) == null || !hold.isLive(now)) {
+        return null;
+      }
+      removeFromAttendees(hold);
+      if (hasConflict(hold.getAttendees(), hold.getWhen(), hold, now)) {
+        return null;
+      }
+
+      // Until the event is published, a copy of the hold that never expires keeps the time from
+      // being taken.
+      confirming =
+          new SlotHold(hold.getId(), hold.getAttendees(), hold.getWhen(), Long.MAX_VALUE);
+      addToAttendees(confirming);
+    } finally {
+      unlock(locked);
+    }
+
+    // Wait for the calendar's writer without the stripes locked, so operations on these attendees
+    // don't queue up behind it.
+    Event event = new Event(title, hold.getWhen(), hold.getAttendees());
+    try {
+      calendar.add(event).join();
+    } finally {
+      // Once published the event itself blocks the time; if it wasn't, the time is free again.
+      locked = lock(hold.getAttendees());
+      try {
+        removeFromAttendees(confirming);
+      } finally {
+        unlock(locked);
+      }
+    }
+    return event;
+  }
+
+  /**
+   * Releases the hold with id {@code holdId} before it expires. Returns whether there was such a
+   * hold.
+   */
+  public boolean release(String holdId) {
+    SlotHold hold = holds.get(holdId);
+    if (hold == null) {
+      return false;
+    }
+
+    List<ReentrantLock> locked = lock(hold.getAttendees());
+    try {
+      if (holds.remove(holdId) == null) {
+        return false;
+      }
+      removeFromAttendees(hold);
+      return true;
+    } finally {
+      unlock(locked);
+    }
+  }
+
+  /**
+   * Returns the number of holds that have been neither confirmed, released nor removed after
+   * expiring.
+   */
+  int size() {
+    return holds.size();
+  }
+
+  /**
+   * Removes every hold that expired by {@code now}, so that holds nobody looks at again don't stay
+   * in memory. Must be called without any stripe locked, since it locks the stripes of each
+   * expired hold in turn.
+   */
+  private void removeExpired(long now) {
+    SlotHold expired;
+    while ((expired = pollExpired(now)) != null) {
+      List<ReentrantLock> locked = lock(expired.getAttendees());
+      try {
+        // Confirming, releasing or a conflict check may have removed it already, but a conflict
+        // check only prunes the lists of the attendees it looked at.
+        holds.remove(expired.getId(), expired);
+        removeFromAttendees(expired);
+      } finally {
+        unlock(locked);
+      }
+    }
+  }
+
+  /**
+   * Takes the oldest hold off the expiry queue if it expired by {@code now}, and returns it.
+   */
+  private SlotHold pollExpired(long now) {
+    while (true) {
+      SlotHold oldest = byExpiry.peek();
+      if (oldest == null || oldest.isLive(now)) {
+        return null;
+      }
+      // Another thread may have taken the oldest hold in the meantime; then try the next one.
+      if (byExpiry.remove(oldest)) {
+        return oldest;
+      }
+    }
+  }
+
+  /**
+   * Returns whether any of {@code attendees} has an event or a live hold other than
+   * {@code ignored} overlapping {@code when}. Expired holds are pruned along the way. The stripes
+   * of {@code attendees} must be locked.
+   */
+  private boolean hasConflict(Collection<String> attendees, TimeRange when, SlotHold ignored,
+      long now) {
+    CalendarSnapshot snapshot = calendar.snapshot();
+    for (String attendee : attendees) {
+      for (Event event : snapshot.getEventsFor(attendee)) {
+        if (event.getWhen().overlaps(when)) {
+          return true;
+        }
+      }
+
+      List<SlotHold> attendeeHolds = holdsByAttendee.get(attendee);
+      if (attendeeHolds == null) {
+        continue;
+      }
+      for (Iterator<SlotHold> iterator = attendeeHolds.iterator(); iterator.hasNext();) {
+        SlotHold other = iterator.next();
+        if (!other.isLive(now)) {
+          iterator.remove();
+          holds.remove(other.getId(), other);
+        } else if (other != ignored && other.getWhen().overlaps(when)) {
+          return true;
+        }
+      }
+      if (attendeeHolds.isEmpty()) {
+        holdsByAttendee.remove(attendee);
+      }
+    }
+    return false;
+  }
+
+  private void addToAttendees(SlotHold hold) {
+    for (String attendee : hold.getAttendees()) {
+      holdsByAttendee.computeIfAbsent(attendee, key -> new ArrayList<>()).add(hold);
+    }
+  }
+
+  private void removeFromAttendees(SlotHold hold) {
+    for (String attendee : hold.getAttendees()) {
+      List<SlotHold> attendeeHolds = holdsByAttendee.get(attendee);
+      if (attendeeHolds != null) {
+        attendeeHolds.remove(hold);
+        if (attendeeHolds.isEmpty()) {
+          holdsByAttendee.remove(attendee);
+        }
+      }
+    }
+  }
+
+  /**
+   * Locks the stripes of {@code attendees}, each once and in ascending order, and returns them.
+   */
+  private List<ReentrantLock> lock(Collection<String> attendees) {
+    TreeSet<Integer> indexes = new TreeSet<>();
+    for (String attendee : attendees) {
+      indexes.add(stripeOf(attendee));
+    }
+
+    List<ReentrantLock> locked = new ArrayList<>(indexes.size());
+    for (int index : indexes) {
+      stripes[index].lock();
+      locked.add(stripes[index]);
+    }
+    return locked;
+  }
+
+  private static void unlock(List<ReentrantLock> locked) {
+    for (int i = locked.size() - 1; i >= 0; i--) {
+      locked.get(i).unlock();
+    }
+  }
+
+  private static int stripeOf(String attendee) {
+    // Spread the hash so that similar names don't share a stripe.
+    int hash = attendee.hashCode();
+    hash ^= hash >>> 16;
+    return (hash & Integer.MAX_VALUE) % STRIPES;
+  }
+}
@@ -0,0 +1,63 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * What a caller would like from a meeting slot beyond everyone being free, used to rank candidate
+ * slots with {@link FindMeetingQuery#queryRanked}. Preferences are considered read-only.
+ */
+public final class SlotPreferences {
+  /** Which part of the day the meeting should preferably be in. */
+  public enum TimeOfDay {
+    ANY,
+    MORNING,
+    AFTERNOON
+  }
+
+  public static final SlotPreferences DEFAULT = new SlotPreferences(TimeOfDay.ANY, true);
+
+  private final TimeOfDay timeOfDay;
+  private final boolean nearMeetings;
+
+  /**
+   * Creates preferences.
+   *
+   * @param timeOfDay The preferred part of the day. Must be non-null.
+   * @param nearMeetings Whether slots right before or after existing meetings are preferred, which
+   *     keeps the attendees' free time in longer blocks.
+   */
+  public SlotPreferences(TimeOfDay timeOfDay, boolean nearMeetings) {
+    if (timeOfDay == null) {
+      throw new IllegalArgumentException("timeOfDay cannot be null");
+    }
+
+    this.timeOfDay = timeOfDay;
+    this.nearMeetings = nearMeetings;
+  }
+
+  /**
+   * Returns the preferred part of the day.
+   */
+  public TimeOfDay getTimeOfDay() {
+    return timeOfDay;
+  }
+
+  /**
+   * Returns whether slots next to existing meetings are preferred.
+   */
+  public boolean prefersNearMeetings() {
+    return nearMeetings;
+  }
+}
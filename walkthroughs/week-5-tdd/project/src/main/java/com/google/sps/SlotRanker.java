@@ -0,0 +1,142 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Scores candidate start times inside free windows and keeps the best {@code k} in a bounded
+ * min-heap, so ranking n candidates costs O(n log k) instead of scoring and sorting all of them.
+ */
+final class SlotRanker {
+  // Candidate start times are the start and latest start of each free window, plus every multiple
+  // of this many minutes in between.
+  static final int CANDIDATE_STEP_MINUTES = 15;
+
+  // Free windows don't overlap and every candidate starts on a different minute, so there are never
+  // more candidates than minutes in a day.
+  static final int MAX_CANDIDATES = TimeRange.WHOLE_DAY.duration();
+
+  private static final int NOON = TimeRange.getTimeInMinutes(12, 0);
+
+  private static final double TIME_OF_DAY_WEIGHT = 1.0;
+  private static final double PROXIMITY_WEIGHT = 1.0;
+  private static final double OPTIONAL_WEIGHT = 2.0;
+  private static final double FRAGMENT_WEIGHT = 0.5;
+
+  // The worst slot sorts first: lowest score, then latest start.
+  private static final Comparator<RankedSlot> WORST_FIRST =
+      Comparator.comparingDouble(RankedSlot::getScore)
+          .thenComparing(slot -> -slot.getWhen().start());
+
+  private SlotRanker() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns up to {@code k} slots of {@code duration} minutes inside {@code freeWindows}, best
+   * first.
+   *
+   * @param freeWindows When every mandatory attendee is free, sorted by start
+   * @param optionalBusyTimes The busy times of each optional attendee
+   */
+  static List<RankedSlot> rank(Collection<TimeRange> freeWindows,
+      List<CompressedBusyList> optionalBusyTimes, int duration, SlotPreferences preferences, int k) {
+    if (k <= 0) {
+      return Collections.emptyList();
+    }
+
+    PriorityQueue<RankedSlot> best =
+        new PriorityQueue<>(Math.min(k, MAX_CANDIDATES), WORST_FIRST);
+    for (TimeRange window : freeWindows) {
+      int latestStart = window.end() - duration;
+      int start = window.start();
+      while (start <= latestStart) {
+        RankedSlot candidate = new RankedSlot(TimeRange.fromStartDuration(start, duration),
+            score(window, start, duration, optionalBusyTimes, preferences));
+        if (best.size() < k) {
+          best.add(candidate);
+        } else if (WORST_FIRST.compare(candidate, best.peek()) > 0) {
+          best.poll();
+          best.add(candidate);
+        }
+
+        int next = (start / CANDIDATE_STEP_MINUTES + 1) * CANDIDATE_STEP_MINUTES;
+        start = start < latestStart && next > latestStart ? latestStart : next;
+      }
+    }
+
+    List<RankedSlot> ranked = new ArrayList<>(best);
+    ranked.sort(WORST_FIRST.reversed());
+    return ranked;
+  }
+
+  private static double score(TimeRange window, int start, int duration,
+      List<CompressedBusyList> optionalBusyTimes, SlotPreferences preferences) {
+    int end = start + duration;
+    double score = 0;
+
+    switch (preferences.getTimeOfDay()) {
+      case MORNING:
+        score += end <= NOON ? TIME_OF_DAY_WEIGHT : 0;
+        break;
+      case AFTERNOON:
+        score += start >= NOON ? TIME_OF_DAY_WEIGHT : 0;
+        break;
+      default:
+        break;
+    }
+
+    // The edges of a free window are the edges of meetings, except at the ends of the day.
+    boolean meetingBefore = window.start() > TimeRange.START_OF_DAY;
+    boolean meetingAfter = window.end() < TimeRange.END_OF_DAY + 1;
+    if (preferences.prefersNearMeetings() && (meetingBefore || meetingAfter)) {
+      int gap = Integer.MAX_VALUE;
+      if (meetingBefore) {
+        gap = start - window.start();
+      }
+      if (meetingAfter) {
+        gap = Math.min(gap, window.end() - end);
+      }
+      score += PROXIMITY_WEIGHT / (1.0 + (double) gap / CANDIDATE_STEP_MINUTES);
+    }
+
+    if (!optionalBusyTimes.isEmpty()) {
+      int free = 0;
+      for (CompressedBusyList busyTimes : optionalBusyTimes) {
+        if (!busyTimes.overlapsAny(start, end)) {
+          free++;
+        }
+      }
+      score += OPTIONAL_WEIGHT * free / optionalBusyTimes.size();
+    }
+
+    // Leftover gaps too short to hold another meeting like this one are wasted.
+    int before = start - window.start();
+    int after = window.end() - end;
+    if (before > 0 && before < duration) {
+      score -= FRAGMENT_WEIGHT;
+    }
+    if (after > 0 && after < duration) {
+      score -= FRAGMENT_WEIGHT;
+    }
+    return score;
+  }
+}
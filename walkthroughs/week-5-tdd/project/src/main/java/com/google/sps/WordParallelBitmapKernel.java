@@ -0,0 +1,108 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.List;
+
+/**
+ * A {@link BitmapKernel} that treats each 64-bit word as 64 lanes. ORs are done four bitmaps at a
+ * time, so the accumulator is loaded and stored a quarter as often. Free runs of at least
+ * {@code D} minutes are found without visiting individual runs: after {@code log2(D)} passes of
+ * "AND with itself shifted", a bit is still set exactly when the {@code D} minutes starting there
+ * are all free, and words without such bits are skipped whole.
+ *
+ * <p>This takes the place of a SIMD kernel: the scheduler targets Java 8, which has no vector API,
+ * but a long already processes 64 minutes per instruction.
+ */
+final class WordParallelBitmapKernel implements BitmapKernel {
+  static final WordParallelBitmapKernel INSTANCE = new WordParallelBitmapKernel();
+
+  private WordParallelBitmapKernel() {}
+
+  @Override
+  public void or(long[] into, List<long[]> bitmaps) {
+    int count = bitmaps.size();
+    int next = 0;
+    for (; next + 4 <= count; next += 4) {
+      long[] a = bitmaps.get(next);
+      long[] b = bitmaps.get(next + 1);
+      long[] c = bitmaps.get(next + 2);
+      long[] d = bitmaps.get(next + 3);
+      for (int i = 0; i < into.length; i++) {
+        into[i] |= a[i] | b[i] | c[i] | d[i];
+      }
+    }
+    for (; next < count; next++) {
+      long[] a = bitmaps.get(next);
+      for (int i = 0; i < into.length; i++) {
+        into[i] |= a[i];
+      }
+    }
+  }
+
+  @Override
+  public void forEachFreeRun(long[] busy, int minutes, long duration, RunConsumer consumer) {
+    if (duration > minutes) {
+      return;
+    }
+    int length = (int) Math.max(duration, 1);
+
+    // Start from the free minutes; bits past the last minute count as busy.
+    long[] fits = new long[busy.length];
+    for (int i = 0; i < fits.length; i++) {
+      fits[i] = ~busy[i];
+    }
+    clearFrom(fits, minutes);
+
+    // Invariant: bit m of fits is set iff minutes m .. m + covered - 1 are all free.
+    int covered = 1;
+    while (covered < length) {
+      int shift = Math.min(covered, length - covered);
+      andShiftedRight(fits, shift);
+      covered += shift;
+    }
+
+    // A run of set bits from a to b - 1 in fits is a free run from a to b - 1 + length.
+    int start = ScalarBitmapKernel.nextMatching(fits, minutes, 0, 0L);
+    while (start < minutes) {
+      int end = ScalarBitmapKernel.nextMatching(fits, minutes, start, -1L);
+      consumer.accept(start, end - 1 + length);
+      start = ScalarBitmapKernel.nextMatching(fits, minutes, end, 0L);
+    }
+  }
+
+  /**
+   * Sets {@code words} to {@code words & (words >>> shift)}, treating the array as one long
+   * little-endian bit string. Word {@code i} only reads words {@code i} and above, so this can be
+   * done in place in ascending order.
+   */
+  private static void andShiftedRight(long[] words, int shift) {
+    int wordShift = shift / Long.SIZE;
+    int bitShift = shift % Long.SIZE;
+    for (int i = 0; i < words.length; i++) {
+      long low = i + wordShift < words.length ? words[i + wordShift] : 0L;
+      long high = i + wordShift + 1 < words.length ? words[i + wordShift + 1] : 0L;
+      long shifted = bitShift == 0 ? low : (low >>> bitShift) | (high << (Long.SIZE - bitShift));
+      words[i] &= shifted;
+    }
+  }
+
+  private static void clearFrom(long[] words, int bit) {
+    for (int i = bit / Long.SIZE; i < words.length; i++) {
+      long keep = i == bit / Long.SIZE ? ~(-1L << (bit % Long.SIZE)) : 0L;
+      words[i] &= keep;
+    }
+  }
+}
@@ -14,9 +14,11 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
 import com.google.gson.Gson;
+import com.google.sps.CompactEncoding;
+import com.google.sps.Event;
 import java.io.IOException;
+import java.util.List;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -26,8 +28,18 @@ import javax.servlet.http.HttpServletResponse;
 public class GetEventsServlet extends HttpServlet {
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    List<Event> events = SharedCalendar.get().snapshot().getEvents();
+
+    // Callers that ask for it get the compact binary encoding instead of JSON.
+    response.setHeader("Vary", "Accept");
+    if (CompactEncoding.isAccepted(request.getHeader("Accept"))) {
+      response.setContentType(CompactEncoding.MEDIA_TYPE);
+      CompactEncoding.writeEvents(events, response.getOutputStream());
+      return;
+    }
+
     Gson gson = new Gson();
-    String jsonResponse = gson.toJson(Events.events);
+    String jsonResponse = gson.toJson(events);
 
     // Send the JSON back as the response
     response.setContentType("application/json");
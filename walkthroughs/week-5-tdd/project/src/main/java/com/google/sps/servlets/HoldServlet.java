@@ -0,0 +1,76 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.sps.SlotHold;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Places a tentative hold on a slot (POST, with a JSON body of attendees, start and duration) or
+ * releases one (DELETE, with an {@code id} parameter). A slot that is no longer free is answered
+ * with 409 Conflict.
+ */
+@WebServlet("/hold")
+public class HoldServlet extends HttpServlet {
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+    HoldRequest holdRequest = gson.fromJson(request.getReader(), HoldRequest.class);
+    if (holdRequest == null || holdRequest.attendees == null || holdRequest.attendees.isEmpty()
+        || holdRequest.duration <= 0 || holdRequest.start < TimeRange.START_OF_DAY) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+      return;
+    }
+    // Holds are on minutes of the day, so the slot must fit inside it.
+    TimeRange when = TimeRange.fromStartDuration(holdRequest.start, holdRequest.duration);
+    if (!TimeRange.WHOLE_DAY.contains(when)) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+      return;
+    }
+
+    SlotHold hold = SharedCalendar.holds().hold(holdRequest.attendees, when);
+    if (hold == null) {
+      response.sendError(HttpServletResponse.SC_CONFLICT);
+      return;
+    }
+
+    response.setContentType("application/json");
+    response.getWriter().println(gson.toJson(hold));
+  }
+
+  @Override
+  public void doDelete(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    String id = request.getParameter("id");
+    if (id == null || !SharedCalendar.holds().release(id)) {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND);
+    }
+  }
+
+  /** The JSON body of a hold request. */
+  private static final class HoldRequest {
+    private Collection<String> attendees = new ArrayList<>();
+    private int start;
+    private int duration;
+  }
+}
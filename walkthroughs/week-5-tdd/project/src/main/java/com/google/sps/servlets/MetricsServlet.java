@@ -0,0 +1,63 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.sps.LatencyHistogram;
+import com.google.sps.QueryMetrics;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Publishes {@link QueryMetrics} as JSON. GET returns, for every phase, the number of timings and
+ * their mean, median, 90th, 99th percentile and maximum in microseconds, along with the counters.
+ * The endpoint is read-only: recording is turned on with the {@code calendar.metrics} system
+ * property in appengine-web.xml, so that no client can turn it on or off or clear it.
+ */
+@WebServlet("/metrics")
+public class MetricsServlet extends HttpServlet {
+  private static final double NANOS_PER_MICRO = 1000.0;
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Map<String, Object> phases = new LinkedHashMap<>();
+    for (QueryMetrics.Phase phase : QueryMetrics.Phase.values()) {
+      LatencyHistogram histogram = QueryMetrics.getHistogram(phase);
+      Map<String, Object> summary = new LinkedHashMap<>();
+      summary.put("count", histogram.getCount());
+      summary.put("mean", histogram.getMean() / NANOS_PER_MICRO);
+      summary.put("p50", histogram.getValueAtPercentile(50) / NANOS_PER_MICRO);
+      summary.put("p90", histogram.getValueAtPercentile(90) / NANOS_PER_MICRO);
+      summary.put("p99", histogram.getValueAtPercentile(99) / NANOS_PER_MICRO);
+      summary.put("max", histogram.getMax() / NANOS_PER_MICRO);
+      phases.put(phase.name().toLowerCase(), summary);
+    }
+
+    Map<String, Object> metrics = new LinkedHashMap<>();
+    metrics.put("enabled", QueryMetrics.isEnabled());
+    metrics.put("phases", phases);
+    metrics.put("eventsScanned", QueryMetrics.getEventsScanned());
+    metrics.put("rangesMerged", QueryMetrics.getRangesMerged());
+    metrics.put("slotsProduced", QueryMetrics.getSlotsProduced());
+
+    response.setContentType("application/json");
+    response.getWriter().println(new Gson().toJson(metrics));
+  }
+}
@@ -14,14 +14,21 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
+import com.google.sps.CalendarSnapshot;
+import com.google.sps.CompactEncoding;
 import com.google.sps.FindMeetingQuery;
 import com.google.sps.MeetingRequest;
+import com.google.sps.QueryResult;
+import com.google.sps.SingleFlight;
+import com.google.sps.SlotPreferences;
 import com.google.sps.TimeRange;
 import com.google.gson.Gson;
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -29,6 +36,19 @@ import javax.servlet.http.HttpServletResponse;
 
 @WebServlet("/query")
 public class QueryServlet extends HttpServlet {
+  private static final String RANKED_MODE = "ranked";
+  private static final int DEFAULT_RANKED_SLOTS = 5;
+  // No day has more candidate start times than minutes, so asking for more changes nothing.
+  private static final int MAX_RANKED_SLOTS = TimeRange.WHOLE_DAY.duration();
+  private static final String LONGEST_MODE = "longest";
+
+  // Plain queries that arrive while an identical one is running wait for its answer instead of
+  // computing their own.
+  private static final SingleFlight<QueryKey, QueryResult> QUERIES = new SingleFlight<>();
+
+  // Set on answers that were cut short by the request's time budget.
+  private static final String PARTIAL_HEADER = "X-Partial-Results";
+
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
     Gson gson = new Gson();
@@ -36,10 +56,47 @@ public class QueryServlet extends HttpServlet {
     // Convert the JSON to an instance of MeetingRequest.
     MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
 
-    // Find the possible meeting times.
+    // Find the possible meeting times. The snapshot is immutable, so concurrent writes to the
+    // calendar can't change it while we are reading it.
     FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
+    CalendarSnapshot snapshot = SharedCalendar.get().snapshot();
+    if (RANKED_MODE.equals(request.getParameter("mode"))) {
+      // Return only the best few start times, e.g. /query?mode=ranked&k=3&prefer=morning. Ranked
+      // slots carry scores, so they are always sent as JSON.
+      int k = getIntParameter(request, "k", DEFAULT_RANKED_SLOTS);
+      if (k <= 0) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+        return;
+      }
+      response.setContentType("application/json");
+      response.getWriter().println(gson.toJson(findMeetingQuery.queryRanked(snapshot,
+          meetingRequest, getPreferences(request), Math.min(k, MAX_RANKED_SLOTS))));
+      return;
+    }
+
+    Collection<TimeRange> answer;
+    if (LONGEST_MODE.equals(request.getParameter("mode"))) {
+      // Return the longest time all attendees share, e.g. /query?mode=longest&before=900. The
+      // requested duration is ignored.
+      TimeRange longest = findMeetingQuery.queryLongest(snapshot, meetingRequest.getAttendees(),
+          getIntParameter(request, "before", TimeRange.WHOLE_DAY.end()));
+      answer = longest == null ? Collections.emptyList() : Collections.singletonList(longest);
+    } else {
+      QueryResult result = QUERIES.run(new QueryKey(snapshot, meetingRequest),
+          () -> findMeetingQuery.queryWithinBudget(snapshot, meetingRequest));
+      answer = result.getTimes();
+      if (result.isPartial()) {
+        response.setHeader(PARTIAL_HEADER, "true");
+      }
+    }
+
+    // Callers that ask for it get the compact binary encoding instead of JSON.
+    response.setHeader("Vary", "Accept");
+    if (CompactEncoding.isAccepted(request.getHeader("Accept"))) {
+      response.setContentType(CompactEncoding.MEDIA_TYPE);
+      CompactEncoding.writeTimeRanges(answer, response.getOutputStream());
+      return;
+    }
 
     // Convert the times to JSON
     String jsonResponse = gson.toJson(answer);
@@ -48,4 +105,69 @@ public class QueryServlet extends HttpServlet {
     response.setContentType("application/json");
     response.getWriter().println(jsonResponse);
   }
+
+  private static SlotPreferences getPreferences(HttpServletRequest request) {
+    SlotPreferences.TimeOfDay timeOfDay = SlotPreferences.TimeOfDay.ANY;
+    String prefer = request.getParameter("prefer");
+    if (prefer != null) {
+      try {
+        timeOfDay = SlotPreferences.TimeOfDay.valueOf(prefer.toUpperCase());
+      } catch (IllegalArgumentException e) {
+        // Unknown preferences are ignored.
+      }
+    }
+    return new SlotPreferences(timeOfDay, !"false".equals(request.getParameter("near_meetings")));
+  }
+
+  private static int getIntParameter(HttpServletRequest request, String name, int defaultValue) {
+    String value = request.getParameter(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Identifies plain queries that must have the same answer: the same attendees and optional
+   * attendees in any order, the same duration and time budget, and the same calendar snapshot.
+   * Including the snapshot version means a query never shares the answer of one that started
+   * before a write it can already see.
+   */
+  private static final class QueryKey {
+    private final long version;
+    private final Set<String> attendees;
+    private final Set<String> optionalAttendees;
+    private final long duration;
+    private final long timeBudgetMillis;
+
+    private QueryKey(CalendarSnapshot snapshot, MeetingRequest request) {
+      this.version = snapshot.getVersion();
+      this.attendees = new HashSet<>(request.getAttendees());
+      // Optional attendees who are also required don't change the answer.
+      this.optionalAttendees = new HashSet<>(request.getOptionalAttendees());
+      this.optionalAttendees.removeAll(attendees);
+      this.duration = request.getDuration();
+      this.timeBudgetMillis = request.getTimeBudgetMillis();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof QueryKey)) {
+        return false;
+      }
+      QueryKey key = (QueryKey) other;
+      return version == key.version && duration == key.duration
+          && timeBudgetMillis == key.timeBudgetMillis && attendees.equals(key.attendees)
+          && optionalAttendees.equals(key.optionalAttendees);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(version, attendees, optionalAttendees, duration, timeBudgetMillis);
+    }
+  }
 }
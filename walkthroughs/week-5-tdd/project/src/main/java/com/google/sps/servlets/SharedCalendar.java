@@ -0,0 +1,68 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.EventCalendar;
+import com.google.sps.EventJournal;
+import com.google.sps.Events;
+import com.google.sps.SlotHolds;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The calendar shared by every servlet in this server. If the {@code calendar.journal.dir} system
+ * property is set, the calendar is recovered from and journaled to that directory. Otherwise it
+ * starts out with {@link Events#events} and lives in memory only. Slot holds on the calendar are
+ * shared the same way.
+ */
+final class SharedCalendar {
+  private static final String JOURNAL_DIR_PROPERTY = "calendar.journal.dir";
+
+  // How long a slot stays held before it must be confirmed.
+  private static final long HOLD_TTL_MINUTES = 5;
+
+  private static final EventCalendar CALENDAR = createCalendar();
+  private static final SlotHolds HOLDS =
+      new SlotHolds(CALENDAR, HOLD_TTL_MINUTES, TimeUnit.MINUTES);
+
+  private SharedCalendar() {
+    // Disallow instances.
+  }
+
+  static EventCalendar get() {
+    return CALENDAR;
+  }
+
+  static SlotHolds holds() {
+    return HOLDS;
+  }
+
+  private static EventCalendar createCalendar() {
+    String journalDir = System.getProperty(JOURNAL_DIR_PROPERTY);
+    if (journalDir == null) {
+      return new EventCalendar(Arrays.asList(Events.events));
+    }
+
+    try {
+      // The journal stays open for as long as the server runs.
+      return new EventCalendar(new EventJournal(Paths.get(journalDir)));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not recover the calendar from " + journalDir, e);
+    }
+  }
+}
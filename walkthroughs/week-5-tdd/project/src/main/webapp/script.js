@@ -52,6 +52,10 @@ function updateResultsOnPage(timeRanges) {
     resultsContainer.innerHTML += '<li>' + timeToString(range.getStartTime()) +
         ' - ' + timeToString(range.getEndTime()) + '</li>';
   }
+  if (timeRanges.partial) {
+    resultsContainer.innerHTML +=
+        '<li>Results are incomplete; some of these times may not be free.</li>';
+  }
 }
 
 /**
@@ -59,8 +63,11 @@ function updateResultsOnPage(timeRanges) {
  */
 function queryServer(meetingRequest) {
   const json = JSON.stringify(meetingRequest);
+  let partial = false;
   return fetch('/query', {method: 'POST', body: json})
       .then((response) => {
+        // The server ran out of time and only looked at some of the events.
+        partial = response.headers.get('X-Partial-Results') === 'true';
         return response.json();
       })
       .then((timeRanges) => {
@@ -69,6 +76,7 @@ function queryServer(meetingRequest) {
         timeRanges.forEach((range) => {
           out.push(new TimeRange(range.start, range.duration));
         });
+        out.partial = partial;
         return out;
       });
 }
@@ -92,10 +100,12 @@ function timeToString(totalMinutes) {
  * Request for possible meeting times.
  */
 class MeetingRequest {
-  constructor(duration, attendees, optional_attendees) {
+  constructor(duration, attendees, optional_attendees, time_budget_ms = 0) {
     this.duration = duration;
     this.attendees = attendees;
     this.optional_attendees = optional_attendees;
+    // How long the server may spend looking for times, or 0 for no limit.
+    this.time_budget_ms = time_budget_ms;
   }
 }
 
@@ -0,0 +1,165 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class BatchSchedulerTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+  private static final String TEAM = "Team";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+  private static final int TIME_1150AM = TimeRange.getTimeInMinutes(11, 50);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+  private static final int TIME_1250PM = TimeRange.getTimeInMinutes(12, 50);
+  private static final int TIME_0100PM = TimeRange.getTimeInMinutes(13, 0);
+  private static final int TIME_0150PM = TimeRange.getTimeInMinutes(13, 50);
+  private static final int TIME_0200PM = TimeRange.getTimeInMinutes(14, 0);
+  private static final int TIME_0230PM = TimeRange.getTimeInMinutes(14, 30);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private final BatchScheduler scheduler = new BatchScheduler(1, TimeUnit.SECONDS);
+
+  @Test
+  public void higherPriorityIsPlacedFirst() {
+    Collection<Event> events = Arrays.asList(
+        busy(PERSON_A, TimeRange.START_OF_DAY, TIME_0900AM),
+        busy(PERSON_A, TIME_1000AM, TIME_0100PM),
+        busy(PERSON_B, TIME_1000AM, TimeRange.END_OF_DAY));
+    BatchRequest low = new BatchRequest("Low",
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES), 1);
+    BatchRequest high = new BatchRequest("High",
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES), 2);
+
+    BatchResult result = scheduler.schedule(events, Arrays.asList(low, high));
+
+    Assert.assertTrue(result.isComplete());
+    Assert.assertTrue(result.getUnplaced().isEmpty());
+    Assert.assertEquals(TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+        result.getPlacements().get(high));
+    Assert.assertEquals(TimeRange.fromStartDuration(TIME_0100PM, DURATION_60_MINUTES),
+        result.getPlacements().get(low));
+  }
+
+  @Test
+  public void localSearchMovesBlockingMeeting() {
+    // Greedy placement puts the short meeting at 9:00, which is the only hour B is free.
+    Collection<Event> events = Arrays.asList(
+        busy(PERSON_B, TimeRange.START_OF_DAY, TIME_0900AM),
+        busy(PERSON_B, TIME_1000AM, TIME_1100AM),
+        busy(PERSON_B, TIME_1150AM, TIME_1200PM),
+        busy(PERSON_B, TIME_1250PM, TIME_0100PM),
+        busy(PERSON_B, TIME_0150PM, TimeRange.END_OF_DAY),
+        busy(PERSON_C, TimeRange.START_OF_DAY, TIME_0900AM),
+        busy(PERSON_C, TIME_0930AM, TIME_0200PM),
+        busy(PERSON_C, TIME_0230PM, TimeRange.END_OF_DAY));
+    BatchRequest shortMeeting = new BatchRequest("Short",
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_C), DURATION_30_MINUTES), 1);
+    BatchRequest longMeeting = new BatchRequest("Long",
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES), 1);
+
+    BatchResult result = scheduler.schedule(events, Arrays.asList(shortMeeting, longMeeting));
+
+    Assert.assertTrue(result.getUnplaced().isEmpty());
+    Assert.assertEquals(TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+        result.getPlacements().get(longMeeting));
+    Assert.assertEquals(TimeRange.fromStartDuration(TIME_0200PM, DURATION_30_MINUTES),
+        result.getPlacements().get(shortMeeting));
+  }
+
+  @Test
+  public void placedMeetingsDoNotConflict() {
+    List<BatchRequest> requests = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      requests.add(new BatchRequest("Meeting " + i,
+          new MeetingRequest(Arrays.asList(PERSON_A, i % 2 == 0 ? PERSON_B : PERSON_C),
+              DURATION_60_MINUTES), i % 3));
+    }
+    Collection<Event> events = Arrays.asList(busy(PERSON_B, TIME_0900AM, TIME_0100PM));
+
+    BatchResult result = scheduler.schedule(events, requests);
+
+    Assert.assertEquals(20, result.getPlacements().size());
+    List<Event> placedEvents = result.toEvents();
+    List<Event> all = new ArrayList<>(events);
+    all.addAll(placedEvents);
+    for (Event placed : placedEvents) {
+      for (Event other : all) {
+        if (other != placed && !Collections.disjoint(
+            other.getAttendees(), placed.getAttendees())) {
+          Assert.assertFalse(other.getWhen().overlaps(placed.getWhen()));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void groupMeetingBlocksItsMembers() throws Exception {
+    Collection<Event> events = Arrays.asList(
+        busy(PERSON_A, TimeRange.START_OF_DAY, TIME_0900AM),
+        busy(PERSON_B, TIME_1000AM, TimeRange.END_OF_DAY));
+    BatchRequest team = new BatchRequest("Team",
+        new MeetingRequest(Arrays.asList(TEAM), DURATION_60_MINUTES), 2);
+    BatchRequest oneOnOne = new BatchRequest("1:1",
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES), 1);
+
+    try (EventCalendar calendar = new EventCalendar(events)) {
+      CalendarSnapshot snapshot = calendar.defineGroup(TEAM, Arrays.asList(PERSON_A, PERSON_B))
+          .get();
+
+      BatchResult result = scheduler.schedule(snapshot, Arrays.asList(team, oneOnOne));
+
+      Assert.assertTrue(result.getUnplaced().isEmpty());
+      Assert.assertEquals(TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+          result.getPlacements().get(team));
+      Assert.assertEquals(TimeRange.fromStartDuration(TIME_1000AM, DURATION_60_MINUTES),
+          result.getPlacements().get(oneOnOne));
+    }
+  }
+
+  @Test
+  public void exhaustedBudgetReturnsPartialResult() {
+    BatchScheduler noTime = new BatchScheduler(0, TimeUnit.SECONDS);
+    BatchRequest request = new BatchRequest("Meeting",
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES), 1);
+
+    BatchResult result = noTime.schedule(new ArrayList<>(), Arrays.asList(request));
+
+    Assert.assertFalse(result.isComplete());
+    Assert.assertEquals(Arrays.asList(request), result.getUnplaced());
+  }
+
+  private static Event busy(String attendee, int start, int end) {
+    return new Event("Busy", TimeRange.fromStartEnd(start, end, false), Arrays.asList(attendee));
+  }
+}
@@ -0,0 +1,127 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class BitmapKernelTest {
+  private static final int MINUTES_PER_WEEK = 7 * MinuteBitmap.MINUTES_PER_DAY;
+  private static final int WEEK_WORDS = (MINUTES_PER_WEEK + Long.SIZE - 1) / Long.SIZE;
+
+  private static final long[] DURATIONS = {0, 1, 7, 30, 63, 64, 65, 200, 1439, 1440, 5000};
+
+  private final Random random = new Random(1234);
+
+  @Test
+  public void kernelsAgreeWithBruteForceOverAWeek() {
+    for (int round = 0; round < 20; round++) {
+      List<long[]> bitmaps = new ArrayList<>();
+      for (int i = 0; i < 1 + random.nextInt(80); i++) {
+        bitmaps.add(randomBitmap(WEEK_WORDS, MINUTES_PER_WEEK, 3 + random.nextInt(10)));
+      }
+
+      long[] scalar = new long[WEEK_WORDS];
+      ScalarBitmapKernel.INSTANCE.or(scalar, bitmaps);
+      long[] wide = new long[WEEK_WORDS];
+      WordParallelBitmapKernel.INSTANCE.or(wide, bitmaps);
+      Assert.assertArrayEquals(scalar, wide);
+
+      for (long duration : DURATIONS) {
+        List<List<Integer>> expected = bruteForceRuns(scalar, MINUTES_PER_WEEK, duration);
+        Assert.assertEquals(expected,
+            runs(ScalarBitmapKernel.INSTANCE, scalar, MINUTES_PER_WEEK, duration));
+        Assert.assertEquals(expected,
+            runs(WordParallelBitmapKernel.INSTANCE, scalar, MINUTES_PER_WEEK, duration));
+      }
+    }
+  }
+
+  @Test
+  public void selectionDependsOnBitmapCount() {
+    Assert.assertSame(ScalarBitmapKernel.INSTANCE, BitmapKernel.select(3));
+    Assert.assertSame(WordParallelBitmapKernel.INSTANCE,
+        BitmapKernel.select(BitmapKernel.WIDE_REQUEST_BITMAPS));
+  }
+
+  @Test
+  public void wideRequestMatchesEventScan() {
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      int start = random.nextInt(TimeRange.END_OF_DAY - 30);
+      events.add(new Event("Event " + i,
+          TimeRange.fromStartDuration(start, 1 + random.nextInt(15)),
+          Arrays.asList("Person " + random.nextInt(200))));
+    }
+    Set<String> attendees = new HashSet<>();
+    for (int i = 0; i < 60; i++) {
+      attendees.add("Person " + i);
+    }
+    MeetingRequest request = new MeetingRequest(attendees, 20);
+
+    try (EventCalendar calendar = new EventCalendar(events)) {
+      Assert.assertEquals(new FindMeetingQuery().query(events, request),
+          new FindMeetingQuery().query(calendar.snapshot(), request));
+    }
+  }
+
+  private long[] randomBitmap(int words, int minutes, int busyRanges) {
+    long[] bitmap = new long[words];
+    for (int i = 0; i < busyRanges; i++) {
+      int start = random.nextInt(minutes);
+      int end = Math.min(minutes, start + 1 + random.nextInt(90));
+      for (int minute = start; minute < end; minute++) {
+        bitmap[minute / Long.SIZE] |= 1L << (minute % Long.SIZE);
+      }
+    }
+    return bitmap;
+  }
+
+  private static List<List<Integer>> runs(BitmapKernel kernel, long[] busy, int minutes,
+      long duration) {
+    List<List<Integer>> runs = new ArrayList<>();
+    kernel.forEachFreeRun(busy, minutes, duration,
+        (start, end) -> runs.add(Arrays.asList(start, end)));
+    return runs;
+  }
+
+  private static List<List<Integer>> bruteForceRuns(long[] busy, int minutes, long duration) {
+    List<List<Integer>> runs = new ArrayList<>();
+    int start = -1;
+    for (int minute = 0; minute <= minutes; minute++) {
+      boolean free = minute < minutes
+          && (busy[minute / Long.SIZE] & (1L << (minute % Long.SIZE))) == 0;
+      if (free && start < 0) {
+        start = minute;
+      } else if (!free && start >= 0) {
+        if (minute - start >= Math.max(duration, 1)) {
+          runs.add(Arrays.asList(start, minute));
+        }
+        start = -1;
+      }
+    }
+    return runs;
+  }
+}
@@ -0,0 +1,94 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.Gson;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CompactEncodingTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private static final List<Event> EVENTS = Arrays.asList(
+      new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+          Arrays.asList(PERSON_A, PERSON_B)),
+      new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+          Arrays.asList(PERSON_B)),
+      new Event("Caf\u00e9", TimeRange.fromStartDuration(TIME_0900AM, 0),
+          Collections.emptyList()));
+
+  @Test
+  public void timeRangesRoundTrip() throws IOException {
+    List<TimeRange> ranges = Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+        TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CompactEncoding.writeTimeRanges(ranges, out);
+
+    // A count byte, then two bytes each for 0, 480, 540 and 900.
+    Assert.assertEquals(1 + 1 + 2 + 2 + 2, out.size());
+    Assert.assertEquals(ranges,
+        CompactEncoding.readTimeRanges(new ByteArrayInputStream(out.toByteArray())));
+  }
+
+  @Test
+  public void eventsRoundTrip() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CompactEncoding.writeEvents(EVENTS, out);
+
+    Assert.assertEquals(EVENTS,
+        CompactEncoding.readEvents(new ByteArrayInputStream(out.toByteArray())));
+    Assert.assertTrue(
+        out.size() < new Gson().toJson(EVENTS).getBytes(StandardCharsets.UTF_8).length);
+  }
+
+  @Test(expected = IOException.class)
+  public void truncatedInputFails() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CompactEncoding.writeEvents(EVENTS, out);
+    byte[] bytes = Arrays.copyOf(out.toByteArray(), out.size() - 1);
+
+    CompactEncoding.readEvents(new ByteArrayInputStream(bytes));
+  }
+
+  @Test
+  public void onlyExplicitAcceptSelectsCompactEncoding() {
+    Assert.assertFalse(CompactEncoding.isAccepted(null));
+    Assert.assertFalse(CompactEncoding.isAccepted("*/*"));
+    Assert.assertFalse(CompactEncoding.isAccepted("application/json, text/plain"));
+    Assert.assertFalse(CompactEncoding.isAccepted(CompactEncoding.MEDIA_TYPE + ";q=0"));
+    Assert.assertTrue(CompactEncoding.isAccepted(CompactEncoding.MEDIA_TYPE));
+    Assert.assertTrue(
+        CompactEncoding.isAccepted("application/json;q=0.5, " + CompactEncoding.MEDIA_TYPE));
+  }
+}
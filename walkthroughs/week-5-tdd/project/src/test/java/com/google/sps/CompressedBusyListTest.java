@@ -0,0 +1,164 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CompressedBusyListTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String TEAM = "Team";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void roundTrip() {
+    List<TimeRange> busy = Arrays.asList(
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+        TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+        TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true));
+
+    CompressedBusyList list = CompressedBusyList.of(busy);
+
+    Assert.assertEquals(BusyTimes.merge(busy), list.toList());
+    Assert.assertTrue(CompressedBusyList.of(new ArrayList<>()).toList().isEmpty());
+  }
+
+  @Test
+  public void operationsMatchUncompressed() {
+    Random random = new Random(42);
+    for (int round = 0; round < 50; round++) {
+      List<TimeRange> a = randomRanges(random, 40);
+      List<TimeRange> b = randomRanges(random, 40);
+      CompressedBusyList compressedA = CompressedBusyList.of(a);
+      CompressedBusyList compressedB = CompressedBusyList.of(b);
+
+      List<TimeRange> both = new ArrayList<>(a);
+      both.addAll(b);
+      Assert.assertEquals(BusyTimes.merge(both), compressedA.union(compressedB).toList());
+      Assert.assertEquals(BusyTimes.merge(both),
+          CompressedBusyList.unionAll(Arrays.asList(compressedA, compressedB)).toList());
+      Assert.assertEquals(
+          FreeSlots.between(BusyTimes.merge(both), DURATION_30_MINUTES),
+          compressedA.union(compressedB).gaps(DURATION_30_MINUTES));
+
+      CompressedBusyList common = compressedA.intersect(compressedB);
+      for (int minute = 0; minute < TimeRange.WHOLE_DAY.end(); minute++) {
+        boolean busyA = BusyTimes.overlapsAny(BusyTimes.merge(a), minute, minute + 1);
+        boolean busyB = BusyTimes.overlapsAny(BusyTimes.merge(b), minute, minute + 1);
+        Assert.assertEquals(busyA, compressedA.overlapsAny(minute, minute + 1));
+        Assert.assertEquals(busyA && busyB, common.overlapsAny(minute, minute + 1));
+      }
+    }
+  }
+
+  @Test
+  public void intersectKeepsCommonMinutes() {
+    CompressedBusyList a = CompressedBusyList.of(Arrays.asList(
+        TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false)));
+    CompressedBusyList b = CompressedBusyList.of(Arrays.asList(
+        TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+        TimeRange.fromStartEnd(TIME_0900AM + 10, TIME_1100AM, false)));
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+        TimeRange.fromStartEnd(TIME_0900AM + 10, TIME_1000AM, false)),
+        a.intersect(b).toList());
+  }
+
+  @Test
+  public void compressedFormIsSmall() {
+    List<TimeRange> busy = new ArrayList<>();
+    for (int start = 0; start + DURATION_30_MINUTES < TimeRange.END_OF_DAY; start += 45) {
+      busy.add(TimeRange.fromStartDuration(start, DURATION_30_MINUTES));
+    }
+
+    CompressedBusyList list = CompressedBusyList.of(busy);
+
+    Assert.assertEquals(busy.size(), list.size());
+    Assert.assertTrue(list.byteSize() < busy.size() * 4);
+  }
+
+  @Test
+  public void snapshotCachesBusyLists() {
+    Collection<Event> events = Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A)));
+    try (EventCalendar calendar = new EventCalendar(events)) {
+      CalendarSnapshot snapshot = calendar.snapshot();
+
+      Assert.assertSame(snapshot.getBusyList(PERSON_A), snapshot.getBusyList(PERSON_A));
+      Assert.assertEquals(Arrays.asList(TimeRange.fromStartDuration(TIME_0800AM,
+          DURATION_30_MINUTES)), snapshot.getBusyList(PERSON_A).toList());
+      Assert.assertEquals(0, snapshot.getBusyList("Nobody").size());
+    }
+  }
+
+  @Test
+  public void groupsAndRankedQueriesUseCompressedBusyTimes() throws Exception {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    try (EventCalendar calendar = new EventCalendar(events)) {
+      CalendarSnapshot snapshot = calendar.defineGroup(TEAM, Arrays.asList(PERSON_A, PERSON_B))
+          .get();
+
+      MaterializedGroup team = snapshot.getGroup(TEAM);
+      Assert.assertEquals(Arrays.asList(
+          TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+          TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES)),
+          team.getBusyList().toList());
+      Assert.assertEquals(team.getBusyList().toList(), team.getBusyTimes());
+
+      List<RankedSlot> expected = query.queryRanked(events, request, SlotPreferences.DEFAULT, 5);
+      List<RankedSlot> actual = query.queryRanked(snapshot, request, SlotPreferences.DEFAULT, 5);
+      Assert.assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); i++) {
+        Assert.assertEquals(expected.get(i).getWhen(), actual.get(i).getWhen());
+        Assert.assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), 0);
+      }
+    }
+  }
+
+  private static List<TimeRange> randomRanges(Random random, int count) {
+    List<TimeRange> ranges = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      int start = random.nextInt(TimeRange.WHOLE_DAY.end() - 60);
+      ranges.add(TimeRange.fromStartDuration(start, 1 + random.nextInt(60)));
+    }
+    return ranges;
+  }
+}
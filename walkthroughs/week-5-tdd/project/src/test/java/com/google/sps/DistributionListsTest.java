@@ -0,0 +1,112 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class DistributionListsTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final String ENGINEERING = "engineering@";
+  private static final String EVERYONE = "everyone@";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private EventCalendar calendar;
+  private DistributionLists lists;
+
+  @Before
+  public void setUp() {
+    calendar = new EventCalendar(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_C))));
+    lists = new DistributionLists(calendar);
+  }
+
+  @After
+  public void tearDown() {
+    calendar.close();
+  }
+
+  @Test
+  public void nestedListsAreExpanded() throws Exception {
+    lists.setMembers(ENGINEERING, Arrays.asList(PERSON_A, PERSON_B)).get();
+    lists.setMembers(EVERYONE, Arrays.asList(ENGINEERING, PERSON_C)).get();
+
+    Assert.assertEquals(new HashSet<>(Arrays.asList(PERSON_A, PERSON_B, PERSON_C)),
+        lists.expand(EVERYONE));
+    Assert.assertTrue(lists.isList(ENGINEERING));
+    Assert.assertFalse(lists.isList(PERSON_A));
+  }
+
+  @Test
+  public void cyclesAreTolerated() throws Exception {
+    lists.setMembers(ENGINEERING, Arrays.asList(PERSON_A, EVERYONE)).get();
+    lists.setMembers(EVERYONE, Arrays.asList(ENGINEERING, PERSON_B)).get();
+
+    Assert.assertEquals(new HashSet<>(Arrays.asList(PERSON_A, PERSON_B)), lists.expand(EVERYONE));
+    Assert.assertEquals(lists.expand(EVERYONE), lists.expand(ENGINEERING));
+  }
+
+  @Test
+  public void changesInvalidateContainingLists() throws Exception {
+    lists.setMembers(ENGINEERING, Arrays.asList(PERSON_A)).get();
+    lists.setMembers(EVERYONE, Arrays.asList(ENGINEERING)).get();
+
+    lists.setMembers(ENGINEERING, Arrays.asList(PERSON_B, PERSON_C)).get();
+
+    Assert.assertEquals(new HashSet<>(Arrays.asList(PERSON_B, PERSON_C)), lists.expand(EVERYONE));
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES)),
+        calendar.snapshot().getGroup(EVERYONE).getBusyTimes());
+
+    lists.removeList(ENGINEERING).get();
+
+    Assert.assertEquals(Collections.singleton(ENGINEERING), lists.expand(EVERYONE));
+    Assert.assertNull(calendar.snapshot().getGroup(ENGINEERING));
+  }
+
+  @Test
+  public void queryUsesListBusyTimes() throws Exception {
+    lists.setMembers(EVERYONE, Arrays.asList(PERSON_A, PERSON_B, PERSON_C)).get();
+    MeetingRequest request = new MeetingRequest(Arrays.asList(EVERYONE), DURATION_60_MINUTES);
+
+    Collection<TimeRange> actual = new FindMeetingQuery().query(calendar.snapshot(), request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM + DURATION_30_MINUTES, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+}
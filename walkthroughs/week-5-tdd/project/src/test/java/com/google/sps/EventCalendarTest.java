@@ -0,0 +1,171 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventCalendarTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final String TEAM = "Team";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private static final Event EVENT_A = new Event("Event A",
+      TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A));
+  private static final Event EVENT_B = new Event("Event B",
+      TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+      Arrays.asList(PERSON_A, PERSON_B));
+
+  private EventCalendar calendar;
+
+  @Before
+  public void setUp() {
+    calendar = new EventCalendar(Arrays.asList(EVENT_A));
+  }
+
+  @After
+  public void tearDown() {
+    calendar.close();
+  }
+
+  @Test
+  public void initialEventsAreIndexed() {
+    CalendarSnapshot snapshot = calendar.snapshot();
+
+    Assert.assertEquals(Arrays.asList(EVENT_A), snapshot.getEvents());
+    Assert.assertEquals(Arrays.asList(EVENT_A), snapshot.getEventsFor(PERSON_A));
+    Assert.assertTrue(snapshot.getEventsFor(PERSON_B).isEmpty());
+  }
+
+  @Test
+  public void oldSnapshotIsUnchangedByWrites() throws Exception {
+    CalendarSnapshot before = calendar.snapshot();
+
+    CalendarSnapshot after = calendar.add(EVENT_B).get();
+
+    Assert.assertEquals(Arrays.asList(EVENT_A), before.getEvents());
+    Assert.assertEquals(Arrays.asList(EVENT_A), before.getEventsFor(PERSON_A));
+    Assert.assertEquals(Arrays.asList(EVENT_A, EVENT_B), after.getEvents());
+    Assert.assertEquals(Arrays.asList(EVENT_A, EVENT_B), after.getEventsFor(PERSON_A));
+    Assert.assertEquals(Arrays.asList(EVENT_B), after.getEventsFor(PERSON_B));
+    Assert.assertTrue(after.getVersion() > before.getVersion());
+  }
+
+  @Test
+  public void removeAndUpdate() throws Exception {
+    Event moved = new Event("Event A",
+        TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES), Arrays.asList(PERSON_B));
+
+    calendar.add(EVENT_B).get();
+    calendar.update(EVENT_A, moved).get();
+    CalendarSnapshot snapshot = calendar.remove(EVENT_B).get();
+
+    Assert.assertEquals(Arrays.asList(moved), snapshot.getEvents());
+    Assert.assertTrue(snapshot.getEventsFor(PERSON_A).isEmpty());
+    Assert.assertFalse(snapshot.getAttendees().contains(PERSON_A));
+    Assert.assertEquals(Arrays.asList(moved), snapshot.getEventsFor(PERSON_B));
+  }
+
+  @Test
+  public void mutationsInOneSubmitAreAppliedTogether() throws Exception {
+    CalendarSnapshot snapshot = calendar.submit(
+        Arrays.asList(EventMutation.remove(EVENT_A), EventMutation.add(EVENT_B))).get();
+
+    Assert.assertEquals(Arrays.asList(EVENT_B), snapshot.getEvents());
+    Assert.assertEquals(Arrays.asList(EVENT_B), snapshot.getEventsFor(PERSON_A));
+  }
+
+  @Test
+  public void concurrentWritesAreAllApplied() throws Exception {
+    List<CompletableFuture<CalendarSnapshot>> writes = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      writes.add(calendar.add(new Event("Event " + i,
+          TimeRange.fromStartDuration(i, DURATION_30_MINUTES), Arrays.asList(PERSON_B))));
+    }
+    for (CompletableFuture<CalendarSnapshot> write : writes) {
+      write.get();
+    }
+
+    Assert.assertEquals(101, calendar.snapshot().getEvents().size());
+    Assert.assertEquals(100, calendar.snapshot().getEventsFor(PERSON_B).size());
+  }
+
+  @Test
+  public void queryUsesSnapshot() throws Exception {
+    calendar.add(EVENT_B).get();
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = new FindMeetingQuery().query(calendar.snapshot(), request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM + DURATION_30_MINUTES, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void groupBusyTimesFollowMemberEvents() throws Exception {
+    Event overlapping = new Event("Event C",
+        TimeRange.fromStartEnd(TIME_0800AM + 10, TIME_0900AM, false), Arrays.asList(PERSON_B));
+
+    calendar.defineGroup(TEAM, Arrays.asList(PERSON_A, PERSON_B)).get();
+    Assert.assertEquals(Arrays.asList(EVENT_A.getWhen()),
+        calendar.snapshot().getGroup(TEAM).getBusyTimes());
+
+    calendar.add(EVENT_B).get();
+    calendar.add(overlapping).get();
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        EVENT_B.getWhen()), calendar.snapshot().getGroup(TEAM).getBusyTimes());
+
+    calendar.remove(EVENT_A).get();
+    Assert.assertEquals(Arrays.asList(overlapping.getWhen(), EVENT_B.getWhen()),
+        calendar.snapshot().getGroup(TEAM).getBusyTimes());
+
+    calendar.removeGroup(TEAM).get();
+    Assert.assertNull(calendar.snapshot().getGroup(TEAM));
+  }
+
+  @Test
+  public void queryStartsFromGroupBusyTimes() throws Exception {
+    calendar.add(EVENT_B).get();
+    calendar.defineGroup(TEAM, Arrays.asList(PERSON_A, PERSON_B)).get();
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B, PERSON_C), DURATION_30_MINUTES);
+
+    CalendarSnapshot snapshot = calendar.snapshot();
+    Assert.assertEquals(1, snapshot.getGroupsWithin(request.getAttendees()).size());
+    Assert.assertEquals(new FindMeetingQuery().query(snapshot.getEvents(), request),
+        new FindMeetingQuery().query(snapshot, request));
+  }
+}
@@ -0,0 +1,337 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventJournalTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private static final Event EVENT_A = new Event("Event A",
+      TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A));
+  private static final Event EVENT_B = new Event("Event B",
+      TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+      Arrays.asList(PERSON_A, PERSON_B));
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path directory;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = folder.newFolder().toPath();
+  }
+
+  @Test
+  public void emptyDirectoryRecoversNothing() throws Exception {
+    try (EventJournal journal = new EventJournal(directory)) {
+      Assert.assertTrue(journal.recover().isEmpty());
+    }
+  }
+
+  @Test
+  public void journalIsReplayed() throws Exception {
+    try (EventJournal journal = new EventJournal(directory)) {
+      journal.recover();
+      journal.append(Arrays.asList(EventMutation.add(EVENT_A), EventMutation.add(EVENT_B)));
+      journal.append(Arrays.asList(EventMutation.remove(EVENT_A)));
+    }
+
+    try (EventJournal journal = new EventJournal(directory)) {
+      Assert.assertEquals(Arrays.asList(EVENT_B), journal.recover());
+    }
+  }
+
+  @Test
+  public void snapshotPlusTailIsReplayed() throws Exception {
+    try (EventJournal journal = new EventJournal(directory, 2)) {
+      journal.recover();
+      journal.append(Arrays.asList(EventMutation.add(EVENT_A), EventMutation.add(EVENT_B)));
+      Assert.assertTrue(journal.shouldSnapshot());
+      journal.writeSnapshot(Arrays.asList(EVENT_A, EVENT_B));
+      Assert.assertFalse(journal.shouldSnapshot());
+      journal.append(Arrays.asList(EventMutation.remove(EVENT_B)));
+    }
+
+    try (EventJournal journal = new EventJournal(directory)) {
+      Assert.assertEquals(Arrays.asList(EVENT_A), journal.recover());
+    }
+  }
+
+  @Test
+  public void tornTailIsDiscarded() throws Exception {
+    try (EventJournal journal = new EventJournal(directory)) {
+      journal.recover();
+      journal.append(Arrays.asList(EventMutation.add(EVENT_A)));
+      journal.append(Arrays.asList(EventMutation.add(EVENT_B)));
+    }
+
+    // Chop the last few bytes off, as if we crashed while writing the second record.
+    Path file = directory.resolve(EventJournal.JOURNAL_FILE);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 3);
+    }
+
+    try (EventJournal journal = new EventJournal(directory)) {
+      Assert.assertEquals(Arrays.asList(EVENT_A), journal.recover());
+      journal.append(Arrays.asList(EventMutation.add(EVENT_B)));
+    }
+
+    try (EventJournal journal = new EventJournal(directory)) {
+      Assert.assertEquals(Arrays.asList(EVENT_A, EVENT_B), journal.recover());
+    }
+  }
+
+  @Test
+  public void calendarWritesAreJournaled() throws Exception {
+    try (EventJournal journal = new EventJournal(directory, 1)) {
+      EventCalendar calendar = new EventCalendar(journal);
+      calendar.add(EVENT_A).get();
+      calendar.update(EVENT_A, EVENT_B).get();
+      calendar.close();
+    }
+
+    Assert.assertTrue(Files.exists(directory.resolve(EventJournal.SNAPSHOT_FILE)));
+    try (EventJournal journal = new EventJournal(directory)) {
+      EventCalendar calendar = new EventCalendar(journal);
+      Assert.assertEquals(Collections.singletonList(EVENT_B), calendar.snapshot().getEvents());
+      calendar.close();
+    }
+  }
+
+  @Test
+  public void failedCompactionDoesNotFailWrites() throws Exception {
+    // A directory in the way of the temporary snapshot file makes every snapshot fail.
+    Path blocker = Files.createDirectories(directory.resolve(EventJournal.SNAPSHOT_FILE + ".tmp"));
+    try (EventJournal journal = new EventJournal(directory, 1)) {
+      EventCalendar calendar = new EventCalendar(journal);
+      calendar.add(EVENT_A).get();
+      calendar.add(EVENT_B).get();
+      calendar.close();
+    }
+
+    Assert.assertFalse(Files.exists(directory.resolve(EventJournal.SNAPSHOT_FILE)));
+    Files.delete(blocker);
+    try (EventJournal journal = new EventJournal(directory)) {
+      Assert.assertEquals(Arrays.asList(EVENT_A, EVENT_B), journal.recover());
+    }
+  }
+
+  @Test
+  public void snapshotIsDurableBeforeJournalIsEmptied() throws Exception {
+    List<String> operations = new ArrayList<>();
+    try (EventJournal journal =
+        new EventJournal(directory, 1, new FaultyStorage(operations, 0, 0))) {
+      journal.recover();
+      journal.append(Arrays.asList(EventMutation.add(EVENT_A)));
+      operations.clear();
+
+      journal.writeSnapshot(Arrays.asList(EVENT_A));
+    }
+
+    Assert.assertEquals(Arrays.asList("sync directory", "truncate"), operations);
+  }
+
+  @Test
+  public void failedRollbackIsRepairedByNextSnapshot() throws Exception {
+    // The first write fails, and so does truncating it away, so the journal may be torn.
+    FaultyStorage storage = new FaultyStorage(new ArrayList<>(), 1, 1);
+    try (EventJournal journal = new EventJournal(directory, 1000, storage)) {
+      EventCalendar calendar = new EventCalendar(journal);
+      try {
+        calendar.add(EVENT_A).get();
+        Assert.fail();
+      } catch (ExecutionException expected) {
+        // The batch was not journaled.
+      }
+      calendar.add(EVENT_B).get();
+      calendar.close();
+    }
+
+    try (EventJournal journal = new EventJournal(directory)) {
+      Assert.assertEquals(Arrays.asList(EVENT_B), journal.recover());
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void appendBeforeRecoverIsRejected() throws Exception {
+    try (EventJournal journal = new EventJournal(directory)) {
+      journal.append(Arrays.asList(EventMutation.add(EVENT_A)));
+    }
+  }
+
+  /**
+   * Storage that records directory syncs and journal truncations, and fails the first few journal
+   * writes and truncations.
+   */
+  private static final class FaultyStorage implements EventJournal.Storage {
+    private final List<String> operations;
+    private int failingWrites;
+    private int failingTruncates;
+
+    private FaultyStorage(List<String> operations, int failingWrites, int failingTruncates) {
+      this.operations = operations;
+      this.failingWrites = failingWrites;
+      this.failingTruncates = failingTruncates;
+    }
+
+    @Override
+    public FileChannel openJournal(Path file) throws IOException {
+      return new FaultyChannel(EventJournal.Storage.FILES.openJournal(file));
+    }
+
+    @Override
+    public void syncDirectory(Path directory) throws IOException {
+      operations.add("sync directory");
+      EventJournal.Storage.FILES.syncDirectory(directory);
+    }
+
+    /** A journal channel that fails on demand. */
+    private final class FaultyChannel extends FileChannel {
+      private final FileChannel channel;
+
+      private FaultyChannel(FileChannel channel) {
+        this.channel = channel;
+      }
+
+      @Override
+      public int write(ByteBuffer source) throws IOException {
+        if (failingWrites > 0) {
+          failingWrites--;
+          throw new IOException("write failed");
+        }
+        return channel.write(source);
+      }
+
+      @Override
+      public FileChannel truncate(long size) throws IOException {
+        operations.add("truncate");
+        if (failingTruncates > 0) {
+          failingTruncates--;
+          throw new IOException("truncate failed");
+        }
+        channel.truncate(size);
+        return this;
+      }
+
+      @Override
+      public int read(ByteBuffer destination) throws IOException {
+        return channel.read(destination);
+      }
+
+      @Override
+      public long read(ByteBuffer[] destinations, int offset, int length) throws IOException {
+        return channel.read(destinations, offset, length);
+      }
+
+      @Override
+      public long write(ByteBuffer[] sources, int offset, int length) throws IOException {
+        return channel.write(sources, offset, length);
+      }
+
+      @Override
+      public long position() throws IOException {
+        return channel.position();
+      }
+
+      @Override
+      public FileChannel position(long position) throws IOException {
+        channel.position(position);
+        return this;
+      }
+
+      @Override
+      public long size() throws IOException {
+        return channel.size();
+      }
+
+      @Override
+      public void force(boolean metaData) throws IOException {
+        channel.force(metaData);
+      }
+
+      @Override
+      public long transferTo(long position, long count, WritableByteChannel target)
+          throws IOException {
+        return channel.transferTo(position, count, target);
+      }
+
+      @Override
+      public long transferFrom(ReadableByteChannel source, long position, long count)
+          throws IOException {
+        return channel.transferFrom(source, position, count);
+      }
+
+      @Override
+      public int read(ByteBuffer destination, long position) throws IOException {
+        return channel.read(destination, position);
+      }
+
+      @Override
+      public int write(ByteBuffer source, long position) throws IOException {
+        return channel.write(source, position);
+      }
+
+      @Override
+      public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+        return channel.map(mode, position, size);
+      }
+
+      @Override
+      public FileLock lock(long position, long size, boolean shared) throws IOException {
+        return channel.lock(position, size, shared);
+      }
+
+      @Override
+      public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+        return channel.tryLock(position, size, shared);
+      }
+
+      @Override
+      protected void implCloseChannel() throws IOException {
+        channel.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,195 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class IcsImporterTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "person.b@example.com";
+
+  private static final LocalDate DATE = LocalDate.of(2020, 1, 1);
+  private static final ZoneId LONDON = ZoneId.of("Europe/London");
+
+  private static final int TIME_0100AM = TimeRange.getTimeInMinutes(1, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1130AM = TimeRange.getTimeInMinutes(11, 30);
+  private static final int TIME_2300PM = TimeRange.getTimeInMinutes(23, 0);
+
+  private static final String CALENDAR = String.join("\r\n",
+      "BEGIN:VCALENDAR",
+      "VERSION:2.0",
+      "BEGIN:VEVENT",
+      "SUMMARY:Team\\, sync",
+      "DTSTART;TZID=Europe/London:20200101T090000",
+      "DTEND;TZID=Europe/London:20200101T093000",
+      "ATTENDEE;CN=\"Person A\";ROLE=REQ-PARTICIPANT:mailto:a@example.com",
+      "ATTENDEE;RSVP=TRUE:mailto:person.b",
+      " @example.com",
+      "END:VEVENT",
+      "BEGIN:VEVENT",
+      "SUMMARY:Planning",
+      "DTSTART:20200101T100000Z",
+      "DURATION:PT1H30M",
+      "ATTENDEE;CN=Person A:mailto:a@example.com",
+      "END:VEVENT",
+      "BEGIN:VEVENT",
+      "SUMMARY:Overnight",
+      "DTSTART:20200101T230000Z",
+      "DTEND:20200102T010000Z",
+      "END:VEVENT",
+      "BEGIN:VEVENT",
+      "SUMMARY:No start",
+      "END:VEVENT",
+      "END:VCALENDAR",
+      "");
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void parsesEvents() throws Exception {
+    List<Event> events = new ArrayList<>();
+    new IcsImporter(DATE, LONDON).parse(new StringReader(CALENDAR), events::add);
+
+    List<Event> expected = Arrays.asList(
+        new Event("Team, sync", TimeRange.fromStartEnd(TIME_0900AM, TIME_0930AM, false),
+            Arrays.asList(PERSON_A, PERSON_B)),
+        new Event("Planning", TimeRange.fromStartEnd(TIME_1000AM, TIME_1130AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Overnight", TimeRange.fromStartEnd(TIME_2300PM, TimeRange.END_OF_DAY, true),
+            Arrays.asList()));
+    Assert.assertEquals(expected, events);
+  }
+
+  @Test
+  public void attendeeNamesAreInterned() throws Exception {
+    List<Event> events = new ArrayList<>();
+    new IcsImporter(DATE, LONDON).parse(new StringReader(CALENDAR), events::add);
+
+    String first = events.get(0).getAttendees().stream()
+        .filter(PERSON_A::equals).findFirst().get();
+    String second = events.get(1).getAttendees().iterator().next();
+    Assert.assertSame(first, second);
+  }
+
+  @Test
+  public void importsFilesIntoCalendar() throws Exception {
+    List<Path> files = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      Path file = folder.newFile("calendar-" + i + ".ics").toPath();
+      Files.write(file, CALENDAR.getBytes(StandardCharsets.UTF_8));
+      files.add(file);
+    }
+
+    try (EventCalendar calendar = new EventCalendar()) {
+      CalendarSnapshot snapshot = new IcsImporter(DATE, LONDON).importFiles(files, calendar).get();
+
+      Assert.assertEquals(12, snapshot.getEvents().size());
+      Assert.assertEquals(8, snapshot.getEventsFor(PERSON_A).size());
+      Assert.assertEquals(new HashSet<>(Arrays.asList(PERSON_A, PERSON_B)),
+          snapshot.getAttendees());
+    }
+  }
+
+  @Test
+  public void onlyEventsOnTheDateAreImported() throws Exception {
+    String calendar = String.join("\r\n",
+        "BEGIN:VCALENDAR",
+        "BEGIN:VEVENT",
+        "SUMMARY:Yesterday",
+        "DTSTART:20191231T090000",
+        "DTEND:20191231T100000",
+        "END:VEVENT",
+        "BEGIN:VEVENT",
+        "SUMMARY:Late night",
+        "DTSTART:20191231T230000",
+        "DTEND:20200101T010000",
+        "END:VEVENT",
+        "BEGIN:VEVENT",
+        "SUMMARY:Today",
+        "DTSTART:20200101T090000",
+        "DURATION:PT30M",
+        "END:VEVENT",
+        "BEGIN:VEVENT",
+        "SUMMARY:Tomorrow",
+        "DTSTART;VALUE=DATE:20200102",
+        "END:VEVENT",
+        "END:VCALENDAR",
+        "");
+    List<Event> events = new ArrayList<>();
+    new IcsImporter(DATE, LONDON).parse(new StringReader(calendar), events::add);
+
+    Assert.assertEquals(Arrays.asList(
+        new Event("Late night", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0100AM, false),
+            Arrays.asList()),
+        new Event("Today", TimeRange.fromStartEnd(TIME_0900AM, TIME_0930AM, false),
+            Arrays.asList())), events);
+  }
+
+  @Test
+  public void utcAndZonedTimesAreConverted() throws Exception {
+    String calendar = String.join("\r\n",
+        "BEGIN:VCALENDAR",
+        "BEGIN:VEVENT",
+        "SUMMARY:Utc",
+        "DTSTART:20200101T140000Z",
+        "DTEND:20200101T143000Z",
+        "END:VEVENT",
+        "BEGIN:VEVENT",
+        "SUMMARY:Paris",
+        "DTSTART;TZID=Europe/Paris:20200101T160000",
+        "DTEND;TZID=Europe/Paris:20200101T173000",
+        "END:VEVENT",
+        "BEGIN:VEVENT",
+        "SUMMARY:Previous day in UTC",
+        "DTSTART:20200102T020000Z",
+        "DTEND:20200102T030000Z",
+        "END:VEVENT",
+        "END:VCALENDAR",
+        "");
+    List<Event> events = new ArrayList<>();
+    ZoneId newYork = ZoneId.of("America/New_York");
+    new IcsImporter(DATE, newYork).parse(new StringReader(calendar), events::add);
+
+    // New York is five hours behind UTC and six behind Paris in January.
+    Assert.assertEquals(Arrays.asList(
+        new Event("Utc", TimeRange.fromStartEnd(TIME_0900AM, TIME_0930AM, false),
+            Arrays.asList()),
+        new Event("Paris", TimeRange.fromStartEnd(TIME_1000AM, TIME_1130AM, false),
+            Arrays.asList()),
+        new Event("Previous day in UTC", TimeRange.fromStartEnd(
+            TimeRange.getTimeInMinutes(21, 0), TimeRange.getTimeInMinutes(22, 0), false),
+            Arrays.asList())), events);
+  }
+}
@@ -0,0 +1,100 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class LongestFreeTimeTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0500AM = TimeRange.getTimeInMinutes(5, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+  private static final int TIME_0300PM = TimeRange.getTimeInMinutes(15, 0);
+  private static final int TIME_0600PM = TimeRange.getTimeInMinutes(18, 0);
+
+  private static final int WHOLE_DAY_END = TimeRange.WHOLE_DAY.end();
+
+  private static final Collection<Event> EVENTS = Arrays.asList(
+      new Event("Event 1", TimeRange.fromStartEnd(TIME_0500AM, TIME_1000AM, false),
+          Arrays.asList(PERSON_A)),
+      new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false),
+          Arrays.asList(PERSON_B)),
+      new Event("Event 3", TimeRange.fromStartEnd(TIME_0300PM, TIME_0600PM, false),
+          Arrays.asList(PERSON_B)));
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+
+  @Test
+  public void longestWindowOfTheDay() {
+    TimeRange actual = query.queryLongest(EVENTS, Arrays.asList(PERSON_A, PERSON_B),
+        WHOLE_DAY_END);
+
+    Assert.assertEquals(TimeRange.fromStartEnd(TIME_0600PM, TimeRange.END_OF_DAY, true), actual);
+  }
+
+  @Test
+  public void longestWindowBeforeDeadline() {
+    TimeRange actual = query.queryLongest(EVENTS, Arrays.asList(PERSON_A, PERSON_B), TIME_0300PM);
+
+    Assert.assertEquals(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0500AM, false),
+        actual);
+  }
+
+  @Test
+  public void deadlineCutsWindowShort() {
+    TimeRange actual = query.queryLongest(EVENTS, Arrays.asList(PERSON_B), TIME_0300PM + 30);
+
+    Assert.assertEquals(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+        actual);
+  }
+
+  @Test
+  public void nobodyBusyMeansWholeDay() {
+    Assert.assertEquals(TimeRange.WHOLE_DAY,
+        query.queryLongest(EVENTS, Arrays.asList(PERSON_C), WHOLE_DAY_END));
+    Assert.assertEquals(TimeRange.WHOLE_DAY,
+        query.queryLongest(EVENTS, Collections.emptyList(), WHOLE_DAY_END));
+  }
+
+  @Test
+  public void noWindowBeforeDeadline() {
+    Collection<Event> busyMorning = Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM, false),
+        Arrays.asList(PERSON_A)));
+
+    Assert.assertNull(query.queryLongest(busyMorning, Arrays.asList(PERSON_A), TIME_0900AM));
+  }
+
+  @Test
+  public void snapshotAgreesWithEvents() {
+    try (EventCalendar calendar = new EventCalendar(EVENTS)) {
+      Assert.assertEquals(
+          query.queryLongest(EVENTS, Arrays.asList(PERSON_A, PERSON_B), TIME_0300PM),
+          query.queryLongest(calendar.snapshot(), Arrays.asList(PERSON_A, PERSON_B), TIME_0300PM));
+    }
+  }
+}
@@ -0,0 +1,102 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class OffHeapEventStoreTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void eventsRoundTrip() {
+    Event event = new Event("Caf\u00e9 \u2615",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_A, PERSON_B));
+    OffHeapEventStore store = OffHeapEventStore.of(Arrays.asList(event));
+
+    Assert.assertEquals(1, store.size());
+    Assert.assertEquals(Arrays.asList(event), new ArrayList<>(store));
+
+    OffHeapEventStore.Cursor cursor = store.cursor();
+    Assert.assertTrue(cursor.next());
+    Assert.assertEquals(TIME_0800AM, cursor.getStart());
+    Assert.assertEquals(DURATION_30_MINUTES, cursor.getDuration());
+    Assert.assertEquals("Caf\u00e9 \u2615", cursor.getTitle());
+    Assert.assertEquals(2, cursor.getAttendeeCount());
+    Assert.assertFalse(cursor.next());
+    Assert.assertEquals(-1, store.getAttendeeId("Nobody"));
+  }
+
+  @Test
+  public void storeGrowsBeyondInitialBuffers() {
+    List<Event> events = randomEvents(new Random(3), 20_000);
+
+    OffHeapEventStore store = OffHeapEventStore.of(events);
+
+    Assert.assertEquals(events.size(), store.size());
+    OffHeapEventStore.Cursor cursor = store.cursor();
+    cursor.moveTo(12_345);
+    Assert.assertEquals(events.get(12_345), cursor.toEvent());
+  }
+
+  @Test
+  public void queriesMatchHeapEvents() {
+    Random random = new Random(5);
+    List<Event> events = randomEvents(random, 500);
+    OffHeapEventStore store = OffHeapEventStore.of(events);
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    for (int round = 0; round < 50; round++) {
+      Set<String> attendees = new HashSet<>();
+      for (int i = random.nextInt(5); i > 0; i--) {
+        attendees.add("Person " + random.nextInt(120));
+      }
+      MeetingRequest request = new MeetingRequest(attendees, 15 + random.nextInt(60));
+      if (round % 3 == 0) {
+        request.addOptionalAttendee("Person " + random.nextInt(120));
+      }
+
+      Assert.assertEquals(query.query(events, request), query.query(store, request));
+    }
+  }
+
+  private static List<Event> randomEvents(Random random, int count) {
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Set<String> attendees = new HashSet<>();
+      for (int j = 1 + random.nextInt(3); j > 0; j--) {
+        attendees.add("Person " + random.nextInt(100));
+      }
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(
+          random.nextInt(TimeRange.END_OF_DAY - 60), random.nextInt(60)), attendees));
+    }
+    return events;
+  }
+}
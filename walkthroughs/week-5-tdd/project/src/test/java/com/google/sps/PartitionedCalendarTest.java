@@ -0,0 +1,132 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class PartitionedCalendarTest {
+  private static final int SHARDS = 3;
+  private static final int PEOPLE = 30;
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private final List<LocalCalendarShard> shards = new ArrayList<>();
+  private PartitionedCalendar calendar;
+
+  @Before
+  public void setUp() {
+    for (int i = 0; i < SHARDS; i++) {
+      shards.add(new LocalCalendarShard("calendar-shard-" + i));
+    }
+    calendar = new PartitionedCalendar(new ArrayList<CalendarShard>(shards));
+  }
+
+  @After
+  public void tearDown() {
+    for (LocalCalendarShard shard : shards) {
+      shard.close();
+    }
+  }
+
+  @Test
+  public void attendeesAreSpreadOverShards() {
+    int[] counts = new int[SHARDS];
+    for (int i = 0; i < 3000; i++) {
+      counts[calendar.shardOf("person" + i + "@example.com")]++;
+    }
+
+    for (int count : counts) {
+      Assert.assertTrue(count > 500);
+    }
+    Assert.assertEquals(calendar.shardOf(person(7)), calendar.shardOf(person(7)));
+  }
+
+  @Test
+  public void queriesMatchSingleCalendar() {
+    Random random = new Random(7);
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      Set<String> attendees = new HashSet<>();
+      for (int j = 1 + random.nextInt(3); j > 0; j--) {
+        attendees.add(person(random.nextInt(PEOPLE)));
+      }
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(
+          random.nextInt(TimeRange.END_OF_DAY - 60), 15 + random.nextInt(45)), attendees));
+    }
+    calendar.submit(toAdds(events)).join();
+
+    FindMeetingQuery query = new FindMeetingQuery();
+    for (int round = 0; round < 50; round++) {
+      Set<String> attendees = new HashSet<>();
+      for (int j = 1 + random.nextInt(4); j > 0; j--) {
+        attendees.add(person(random.nextInt(PEOPLE)));
+      }
+      MeetingRequest request = new MeetingRequest(attendees, DURATION_30_MINUTES);
+      if (round % 2 == 0) {
+        request.addOptionalAttendee(person(random.nextInt(PEOPLE)));
+      }
+
+      Assert.assertEquals(query.query(events, request), query.query(calendar, request));
+    }
+  }
+
+  @Test
+  public void updateMovesEventBetweenShards() {
+    String personA = person(0);
+    String personB = person(1);
+    for (int i = 2; calendar.shardOf(personA) == calendar.shardOf(personB); i++) {
+      personB = person(i);
+    }
+    Event before = new Event("Event", TimeRange.fromStartDuration(0, DURATION_30_MINUTES),
+        Arrays.asList(personA));
+    Event after = new Event("Event", TimeRange.fromStartDuration(0, DURATION_30_MINUTES),
+        Arrays.asList(personB));
+    calendar.add(before).join();
+
+    calendar.submit(Arrays.asList(EventMutation.update(before, after))).join();
+
+    FindMeetingQuery query = new FindMeetingQuery();
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), query.query(calendar,
+        new MeetingRequest(Arrays.asList(personA), DURATION_30_MINUTES)));
+    Assert.assertEquals(query.query(Arrays.asList(after),
+        new MeetingRequest(Arrays.asList(personB), DURATION_30_MINUTES)),
+        query.query(calendar, new MeetingRequest(Arrays.asList(personB), DURATION_30_MINUTES)));
+  }
+
+  private static List<EventMutation> toAdds(List<Event> events) {
+    List<EventMutation> mutations = new ArrayList<>();
+    for (Event event : events) {
+      mutations.add(EventMutation.add(event));
+    }
+    return mutations;
+  }
+
+  private static String person(int i) {
+    return "Person " + i;
+  }
+}
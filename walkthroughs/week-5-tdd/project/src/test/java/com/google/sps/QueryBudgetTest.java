@@ -0,0 +1,159 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryBudgetTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_1_HOUR = 60;
+
+  private static final int EVENT_COUNT = 200;
+
+  // Person A is busy from 8:00 to 8:30 in the first event, and from 9:00 to 10:00 in events that
+  // are only reached after enough others to pass a deadline check.
+  private static final List<Event> EVENTS = createEvents();
+
+  // A clock that only moves when a test moves it.
+  private long nowNanos;
+
+  @Test
+  public void noBudgetIsNeverPartial() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    QueryResult result = new FindMeetingQuery().queryWithinBudget(EVENTS, request);
+
+    Assert.assertFalse(result.isPartial());
+    Assert.assertEquals(new FindMeetingQuery().query(EVENTS, request),
+        new ArrayList<>(result.getTimes()));
+  }
+
+  @Test
+  public void generousBudgetIsNotPartial() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.setTimeBudgetMillis(60_000);
+
+    QueryResult result = new FindMeetingQuery().queryWithinBudget(EVENTS, request);
+
+    Assert.assertFalse(result.isPartial());
+    Assert.assertEquals(Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+        TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+        TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true)),
+        new ArrayList<>(result.getTimes()));
+  }
+
+  @Test
+  public void exhaustedBudgetReturnsWhatWasFound() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    QueryResult result = new FindMeetingQuery().queryWithinBudget(EVENTS, request,
+        expiredDeadline());
+
+    // Only the events before the first deadline check were looked at.
+    Assert.assertTrue(result.isPartial());
+    Assert.assertEquals(Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+        TimeRange.fromStartEnd(TIME_0830AM, TimeRange.END_OF_DAY, true)),
+        new ArrayList<>(result.getTimes()));
+  }
+
+  @Test
+  public void exhaustedBudgetSkipsOptionalFallback() {
+    // Person C is free all day, but looking again without the optional attendees would need more
+    // time than the budget allows.
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_C), DURATION_1_HOUR * 15);
+    request.addOptionalAttendee(PERSON_A);
+    request.addOptionalAttendee(PERSON_B);
+
+    QueryResult result = new FindMeetingQuery().queryWithinBudget(EVENTS, request,
+        expiredDeadline());
+
+    Assert.assertTrue(result.isPartial());
+    Assert.assertTrue(result.getTimes().isEmpty());
+  }
+
+  @Test
+  public void budgetExpiredBeforeStartDoesNotFreeTheWholeDay() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    CalendarSnapshot snapshot = snapshotOf(EVENTS);
+
+    QueryResult result = new FindMeetingQuery().queryWithinBudget(snapshot, request,
+        expiredDeadline());
+
+    Assert.assertFalse(result.getTimes().contains(TimeRange.WHOLE_DAY));
+  }
+
+  @Test
+  public void deadlineFollowsItsClock() {
+    Deadline deadline = Deadline.after(1, () -> nowNanos);
+
+    Assert.assertFalse(deadline.expired());
+    nowNanos += 999_999;
+    Assert.assertFalse(deadline.expired());
+    nowNanos += 1;
+    Assert.assertTrue(deadline.expired());
+    Assert.assertTrue(deadline.wasReached());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeBudgetIsRejected() {
+    new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES).setTimeBudgetMillis(-1);
+  }
+
+  private static List<Event> createEvents() {
+    List<Event> events = new ArrayList<>();
+    events.add(new Event("Event 0", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_A)));
+    for (int i = 1; i < EVENT_COUNT; i++) {
+      String attendee = i < EVENT_COUNT / 2 ? PERSON_B : PERSON_A;
+      events.add(new Event("Event " + i,
+          TimeRange.fromStartDuration(TIME_0900AM, DURATION_1_HOUR), Arrays.asList(attendee)));
+    }
+    return events;
+  }
+
+  /** Returns a deadline that has already passed by the time a query first checks it. */
+  private Deadline expiredDeadline() {
+    Deadline deadline = Deadline.after(1, () -> nowNanos);
+    nowNanos += 2_000_000;
+    return deadline;
+  }
+
+  private static CalendarSnapshot snapshotOf(List<Event> events) {
+    List<EventMutation> mutations = new ArrayList<>();
+    for (Event event : events) {
+      mutations.add(EventMutation.add(event));
+    }
+    return CalendarSnapshot.EMPTY.apply(mutations);
+  }
+}
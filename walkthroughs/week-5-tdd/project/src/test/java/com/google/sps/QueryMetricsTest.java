@@ -0,0 +1,125 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryMetricsTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_1_HOUR = 60;
+
+  private static final Collection<Event> EVENTS = Arrays.asList(
+      new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_1_HOUR),
+          Arrays.asList(PERSON_A)),
+      new Event("Event 2", TimeRange.fromStartDuration(TIME_0830AM, DURATION_1_HOUR),
+          Arrays.asList(PERSON_B)));
+
+  private static final MeetingRequest REQUEST =
+      new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+  @Before
+  public void setUp() {
+    QueryMetrics.reset();
+  }
+
+  @After
+  public void tearDown() {
+    QueryMetrics.setEnabled(false);
+    QueryMetrics.reset();
+  }
+
+  @Test
+  public void nothingIsRecordedWhileDisabled() {
+    QueryMetrics.setEnabled(false);
+
+    new FindMeetingQuery().query(EVENTS, REQUEST);
+
+    for (QueryMetrics.Phase phase : QueryMetrics.Phase.values()) {
+      Assert.assertEquals(0, QueryMetrics.getHistogram(phase).getCount());
+    }
+    Assert.assertEquals(0, QueryMetrics.getEventsScanned());
+    Assert.assertEquals(0, QueryMetrics.getSlotsProduced());
+  }
+
+  @Test
+  public void phasesAndCountersAreRecorded() {
+    QueryMetrics.setEnabled(true);
+
+    new FindMeetingQuery(QueryPlanner.fixed(new SortMergeEngine())).query(EVENTS, REQUEST);
+
+    for (QueryMetrics.Phase phase : QueryMetrics.Phase.values()) {
+      Assert.assertEquals(1, QueryMetrics.getHistogram(phase).getCount());
+    }
+    Assert.assertEquals(2, QueryMetrics.getEventsScanned());
+    Assert.assertEquals(2, QueryMetrics.getRangesMerged());
+    // Before 8:00 AM and after 9:30 AM.
+    Assert.assertEquals(2, QueryMetrics.getSlotsProduced());
+  }
+
+  @Test
+  public void smallValuesAreExact() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int value = 1; value <= 10; value++) {
+      histogram.record(value);
+    }
+
+    Assert.assertEquals(10, histogram.getCount());
+    Assert.assertEquals(5, histogram.getValueAtPercentile(50));
+    Assert.assertEquals(9, histogram.getValueAtPercentile(90));
+    Assert.assertEquals(10, histogram.getValueAtPercentile(100));
+    Assert.assertEquals(5.5, histogram.getMean(), 1e-9);
+  }
+
+  @Test
+  public void largeValuesAreWithinOneBucket() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long value = 1; value <= 1000; value++) {
+      histogram.record(value * 1000);
+    }
+
+    long median = histogram.getValueAtPercentile(50);
+    Assert.assertTrue(median >= 500_000 && median <= 500_000 * 1.04);
+    Assert.assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+    Assert.assertEquals(1_000_000, histogram.getMax());
+
+    histogram.reset();
+    Assert.assertEquals(0, histogram.getCount());
+    Assert.assertEquals(0, histogram.getValueAtPercentile(99));
+  }
+
+  @Test
+  public void bucketBoundsContainTheirValues() {
+    for (long value : new long[] {0, 1, 63, 64, 65, 127, 128, 1_000_003, Long.MAX_VALUE}) {
+      int index = LatencyHistogram.indexOf(value);
+      Assert.assertTrue(LatencyHistogram.highestValueAt(index) >= value);
+      Assert.assertTrue(index == 0 || LatencyHistogram.highestValueAt(index - 1) < value);
+    }
+  }
+}
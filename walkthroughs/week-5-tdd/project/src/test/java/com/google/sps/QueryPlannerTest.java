@@ -0,0 +1,100 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryPlannerTest {
+  private static final int DURATION_30_MINUTES = 30;
+
+  private static final List<AvailabilityEngine> ENGINES =
+      Arrays.asList(new SortMergeEngine(), new BitmapEngine(), new IntervalTreeEngine());
+
+  @Test
+  public void enginesAgreeOnRandomCalendars() {
+    Random random = new Random(42);
+    for (int trial = 0; trial < 500; trial++) {
+      List<TimeRange> busyTimes = new ArrayList<>();
+      int count = 1 + random.nextInt(40);
+      for (int i = 0; i < count; i++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+        int end = Math.min(TimeRange.WHOLE_DAY.end(), start + 1 + random.nextInt(180));
+        busyTimes.add(TimeRange.fromStartEnd(start, end, false));
+      }
+      long duration = random.nextInt(120);
+
+      Collection<TimeRange> expected =
+          new SortMergeEngine().findAvailableTimes(new ArrayList<>(busyTimes), duration);
+      for (AvailabilityEngine engine : ENGINES) {
+        Assert.assertEquals(engine.getName(), expected,
+            engine.findAvailableTimes(new ArrayList<>(busyTimes), duration));
+      }
+    }
+  }
+
+  @Test
+  public void enginesAgreeOnTouchingAndEndOfDayRanges() {
+    List<TimeRange> busyTimes = Arrays.asList(TimeRange.fromStartDuration(0, 30),
+        TimeRange.fromStartDuration(30, 30), TimeRange.fromStartDuration(100, 30),
+        TimeRange.fromStartEnd(TimeRange.END_OF_DAY - 30, TimeRange.END_OF_DAY, true));
+
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.fromStartEnd(60, 100, false),
+        TimeRange.fromStartEnd(130, TimeRange.END_OF_DAY - 30, false));
+    for (AvailabilityEngine engine : ENGINES) {
+      Assert.assertEquals(engine.getName(), expected,
+          engine.findAvailableTimes(new ArrayList<>(busyTimes), DURATION_30_MINUTES));
+    }
+  }
+
+  @Test
+  public void tinyRequestsUseSortMerge() {
+    QueryStatistics statistics = new QueryStatistics(1);
+    statistics.recordBusyTime(TimeRange.fromStartDuration(600, DURATION_30_MINUTES));
+
+    Assert.assertEquals("sort-merge", QueryPlanner.adaptive().plan(statistics).getName());
+  }
+
+  @Test
+  public void largeRequestsUseBitmap() {
+    QueryStatistics statistics = new QueryStatistics(200);
+    for (int i = 0; i < 2000; i++) {
+      statistics.recordBusyTime(TimeRange.fromStartDuration(i % 1400, DURATION_30_MINUTES));
+    }
+
+    Assert.assertEquals("bitmap", QueryPlanner.adaptive().plan(statistics).getName());
+  }
+
+  @Test
+  public void heavilyOverlappingRequestsAvoidSortMerge() {
+    // Many busy times stacked on the same two blocks, compared to a short scan.
+    QueryStatistics statistics = new QueryStatistics(50);
+    for (int i = 0; i < 500; i++) {
+      statistics.recordBusyTime(TimeRange.fromStartDuration(i % 2 == 0 ? 0 : 1380, 60));
+    }
+
+    String chosen = QueryPlanner.adaptive().plan(statistics).getName();
+    Assert.assertNotEquals("sort-merge", chosen);
+  }
+}
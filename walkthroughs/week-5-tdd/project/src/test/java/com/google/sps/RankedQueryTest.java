@@ -0,0 +1,140 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RankedQueryTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0000AM = TimeRange.getTimeInMinutes(0, 0);
+  private static final int TIME_0030AM = TimeRange.getTimeInMinutes(0, 30);
+  private static final int TIME_0045AM = TimeRange.getTimeInMinutes(0, 45);
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1300PM = TimeRange.getTimeInMinutes(13, 0);
+  private static final int TIME_2329PM = TimeRange.getTimeInMinutes(23, 29);
+  private static final int TIME_2359PM = TimeRange.getTimeInMinutes(23, 59);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private static final Event EVENT_A = new Event("Event A",
+      TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES), Arrays.asList(PERSON_A));
+  private static final Event EVENT_B = new Event("Event B",
+      TimeRange.fromStartDuration(TIME_1000AM, DURATION_60_MINUTES), Arrays.asList(PERSON_B));
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+
+  @Test
+  public void emptyDayPrefersUnfragmentedMorningSlots() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    SlotPreferences morning = new SlotPreferences(SlotPreferences.TimeOfDay.MORNING, true);
+
+    List<RankedSlot> actual = query.queryRanked(Collections.emptyList(), request, morning, 3);
+
+    Assert.assertEquals(Arrays.asList(TIME_0000AM, TIME_0030AM, TIME_0045AM), starts(actual));
+  }
+
+  @Test
+  public void slotsNextToMeetingsRankFirst() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<RankedSlot> actual =
+        query.queryRanked(Arrays.asList(EVENT_A), request, SlotPreferences.DEFAULT, 2);
+
+    Assert.assertEquals(Arrays.asList(TIME_0830AM, TIME_1000AM), starts(actual));
+  }
+
+  @Test
+  public void meetingInTheLastMinuteOfTheDayCounts() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    Event lastMinute = new Event("Event",
+        TimeRange.fromStartEnd(TIME_2359PM, TimeRange.END_OF_DAY, true), Arrays.asList(PERSON_A));
+
+    List<RankedSlot> actual =
+        query.queryRanked(Arrays.asList(lastMinute), request, SlotPreferences.DEFAULT, 1);
+
+    Assert.assertEquals(Arrays.asList(TIME_2329PM), starts(actual));
+  }
+
+  @Test
+  public void optionalAttendeesRaiseTheScore() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    List<RankedSlot> actual =
+        query.queryRanked(Arrays.asList(EVENT_A, EVENT_B), request, SlotPreferences.DEFAULT, 2);
+
+    Assert.assertEquals(Arrays.asList(TIME_0830AM, TIME_0800AM), starts(actual));
+  }
+
+  @Test
+  public void rankedSlotsFitTheAvailableTimes() {
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES);
+    SlotPreferences afternoon = new SlotPreferences(SlotPreferences.TimeOfDay.AFTERNOON, false);
+    Collection<Event> events = Arrays.asList(EVENT_A, EVENT_B);
+
+    List<RankedSlot> actual = query.queryRanked(events, request, afternoon, 10);
+    Collection<TimeRange> available = query.query(events, request);
+
+    Assert.assertEquals(10, actual.size());
+    Assert.assertTrue(actual.get(0).getWhen().start() >= TIME_1300PM - DURATION_60_MINUTES);
+    for (RankedSlot slot : actual) {
+      Assert.assertTrue(available.stream().anyMatch(range -> range.contains(slot.getWhen())));
+    }
+    for (int i = 1; i < actual.size(); i++) {
+      Assert.assertTrue(actual.get(i - 1).getScore() >= actual.get(i).getScore());
+    }
+
+    try (EventCalendar calendar = new EventCalendar(events)) {
+      Assert.assertEquals(starts(actual),
+          starts(query.queryRanked(calendar.snapshot(), request, afternoon, 10)));
+    }
+  }
+
+  @Test
+  public void hugeKReturnsEveryCandidate() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<RankedSlot> actual = query.queryRanked(
+        Collections.emptyList(), request, SlotPreferences.DEFAULT, Integer.MAX_VALUE);
+
+    // Every 15 minutes from midnight until 23:30.
+    Assert.assertEquals(95, actual.size());
+  }
+
+  private static List<Integer> starts(List<RankedSlot> slots) {
+    List<Integer> starts = new ArrayList<>();
+    for (RankedSlot slot : slots) {
+      starts.add(slot.getWhen().start());
+    }
+    return starts;
+  }
+}
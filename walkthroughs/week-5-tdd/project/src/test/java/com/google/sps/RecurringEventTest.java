@@ -0,0 +1,115 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RecurringEventTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_15_MINUTES = 15;
+  private static final int DURATION_30_MINUTES = 30;
+
+  private static final int MONDAY = 18_000;
+
+  private RecurringEvent standUp;
+  private RecurringEvent oneOnOne;
+  private RecurringSchedule schedule;
+
+  @Before
+  public void setUp() {
+    standUp = new RecurringEvent("Stand-up",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_15_MINUTES),
+        Arrays.asList(PERSON_A, PERSON_B), MONDAY,
+        RecurrenceRule.daily(1).withExceptions(MONDAY + 2));
+    oneOnOne = new RecurringEvent("1:1",
+        TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A),
+        MONDAY, RecurrenceRule.weekly(1).withCount(3));
+
+    schedule = new RecurringSchedule();
+    schedule.add(standUp);
+    schedule.add(oneOnOne);
+  }
+
+  @Test
+  public void ruleRespectsIntervalCountUntilAndExceptions() {
+    RecurrenceRule everyOtherDay = RecurrenceRule.daily(2).withUntilDay(MONDAY + 6);
+
+    Assert.assertTrue(everyOtherDay.occursOn(MONDAY, MONDAY));
+    Assert.assertFalse(everyOtherDay.occursOn(MONDAY, MONDAY + 1));
+    Assert.assertTrue(everyOtherDay.occursOn(MONDAY, MONDAY + 6));
+    Assert.assertFalse(everyOtherDay.occursOn(MONDAY, MONDAY + 8));
+    Assert.assertFalse(everyOtherDay.occursOn(MONDAY, MONDAY - 2));
+
+    Assert.assertTrue(oneOnOne.occursOn(MONDAY + 14));
+    Assert.assertFalse(oneOnOne.occursOn(MONDAY + 21));
+    Assert.assertFalse(standUp.occursOn(MONDAY + 2));
+    Assert.assertTrue(standUp.occursOn(MONDAY + 1_000_000));
+  }
+
+  @Test
+  public void occurrenceDaysOnlyCoverTheWindow() {
+    List<Integer> days = new ArrayList<>();
+    PrimitiveIterator.OfInt iterator = standUp.occurrenceDays(MONDAY + 1, MONDAY + 4);
+    while (iterator.hasNext()) {
+      days.add(iterator.nextInt());
+    }
+
+    Assert.assertEquals(Arrays.asList(MONDAY + 1, MONDAY + 3, MONDAY + 4), days);
+    Assert.assertFalse(oneOnOne.occurrenceDays(MONDAY + 15, Integer.MAX_VALUE).hasNext());
+  }
+
+  @Test
+  public void occurrencesShareOneEvent() {
+    List<Event> monday = new ArrayList<>(schedule.eventsOn(MONDAY, Collections.emptyList()));
+    List<Event> tuesday = new ArrayList<>(schedule.eventsOn(MONDAY + 1, Collections.emptyList()));
+
+    Assert.assertEquals(Arrays.asList(standUp.getOccurrence(), oneOnOne.getOccurrence()), monday);
+    Assert.assertEquals(Arrays.asList(standUp.getOccurrence()), tuesday);
+    Assert.assertSame(monday.get(0), tuesday.get(0));
+  }
+
+  @Test
+  public void queryExpandsOnlyTheRequestedDay() {
+    Event lunch = new Event("Lunch",
+        TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(12, 0), DURATION_30_MINUTES),
+        Arrays.asList(PERSON_B));
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = new FindMeetingQuery()
+        .query(Arrays.asList(lunch), schedule, MONDAY + 7, request);
+    Collection<Event> materialized = Arrays.asList(
+        lunch, standUp.getOccurrence(), oneOnOne.getOccurrence());
+
+    Assert.assertEquals(new FindMeetingQuery().query(materialized, request), actual);
+  }
+}
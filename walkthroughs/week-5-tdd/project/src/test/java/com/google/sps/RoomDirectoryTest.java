@@ -0,0 +1,117 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RoomDirectoryTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+  private static final int TIME_0100PM = TimeRange.getTimeInMinutes(13, 0);
+  private static final int TIME_0200PM = TimeRange.getTimeInMinutes(14, 0);
+
+  private static final int DURATION_60_MINUTES = 60;
+
+  private static final Room SMALL = new Room("Small", 2);
+  private static final Room MEDIUM = new Room("Medium", 6);
+  private static final Room LARGE = new Room("Large", 12);
+
+  private static final TimeRange MEDIUM_BOOKING =
+      TimeRange.fromStartEnd(TIME_0900AM, TIME_1200PM, false);
+
+  private static final Collection<Event> EVENTS = Arrays.asList(new Event("Event 1",
+      TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), Arrays.asList(PERSON_A)));
+
+  private RoomDirectory rooms;
+  private MeetingRequest request;
+
+  @Before
+  public void setUp() {
+    rooms = new RoomDirectory();
+    rooms.addRoom(SMALL);
+    rooms.addRoom(MEDIUM);
+    rooms.addRoom(LARGE);
+    rooms.book(MEDIUM.getName(), MEDIUM_BOOKING);
+    rooms.book(LARGE.getName(), TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0100PM, false));
+    rooms.book(LARGE.getName(), TimeRange.fromStartEnd(TIME_0200PM, TimeRange.END_OF_DAY, true));
+
+    request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+  }
+
+  @Test
+  public void onlyBigEnoughFreeRoomsAreReturned() {
+    List<RoomSlot> actual = new FindMeetingQuery().queryWithRooms(EVENTS, request, rooms);
+    List<RoomSlot> expected = Arrays.asList(
+        new RoomSlot(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false), MEDIUM),
+        new RoomSlot(TimeRange.fromStartEnd(TIME_1200PM, TimeRange.END_OF_DAY, true), MEDIUM),
+        new RoomSlot(TimeRange.fromStartEnd(TIME_0100PM, TIME_0200PM, false), LARGE));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void releasedBookingFreesRoom() {
+    Assert.assertTrue(rooms.release(MEDIUM.getName(), MEDIUM_BOOKING));
+    Assert.assertFalse(rooms.release(MEDIUM.getName(), MEDIUM_BOOKING));
+
+    List<RoomSlot> actual = new FindMeetingQuery().queryWithRooms(EVENTS, request, rooms);
+    List<RoomSlot> expected = Arrays.asList(
+        new RoomSlot(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false), MEDIUM),
+        new RoomSlot(TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true), MEDIUM),
+        new RoomSlot(TimeRange.fromStartEnd(TIME_0100PM, TIME_0200PM, false), LARGE));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void noRoomBigEnough() {
+    MeetingRequest crowd = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    for (int i = 0; i < 20; i++) {
+      crowd.addOptionalAttendee("Guest " + i);
+    }
+
+    Assert.assertTrue(new FindMeetingQuery().queryWithRooms(EVENTS, crowd, rooms).isEmpty());
+  }
+
+  @Test
+  public void snapshotAgreesWithEvents() {
+    rooms.removeRoom(LARGE.getName());
+
+    try (EventCalendar calendar = new EventCalendar(EVENTS)) {
+      Assert.assertEquals(new FindMeetingQuery().queryWithRooms(EVENTS, request, rooms),
+          new FindMeetingQuery().queryWithRooms(calendar.snapshot(), request, rooms));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void duplicateRoomIsRejected() {
+    rooms.addRoom(new Room(SMALL.getName(), 4));
+  }
+}
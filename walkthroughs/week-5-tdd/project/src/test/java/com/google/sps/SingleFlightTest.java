@@ -0,0 +1,114 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class SingleFlightTest {
+  private static final int CALLERS = 8;
+
+  @Test
+  public void concurrentCallersShareOneComputation() throws Exception {
+    SingleFlight<String, Object> flight = new SingleFlight<>();
+    AtomicInteger computations = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    try {
+      Future<Object> leader = executor.submit(() -> flight.run("key", () -> {
+        computations.incrementAndGet();
+        started.countDown();
+        await(release);
+        return new Object();
+      }));
+      started.await();
+
+      List<Future<Object>> waiters = new ArrayList<>();
+      for (int i = 1; i < CALLERS; i++) {
+        waiters.add(executor.submit(() -> flight.run("key", () -> {
+          computations.incrementAndGet();
+          return new Object();
+        })));
+      }
+      // Give the waiters a moment to join the running computation before it finishes.
+      Thread.sleep(200);
+      release.countDown();
+
+      Object answer = leader.get();
+      for (Future<Object> waiter : waiters) {
+        Assert.assertSame(answer, waiter.get());
+      }
+      Assert.assertEquals(1, computations.get());
+      Assert.assertEquals(0, flight.inFlightCount());
+    } finally {
+      executor.shutdownNow();
+      executor.awaitTermination(1, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  public void finishedComputationsAreNotCached() {
+    SingleFlight<String, Integer> flight = new SingleFlight<>();
+    AtomicInteger computations = new AtomicInteger();
+
+    Assert.assertEquals(1, (int) flight.run("key", computations::incrementAndGet));
+    Assert.assertEquals(2, (int) flight.run("key", computations::incrementAndGet));
+  }
+
+  @Test
+  public void differentKeysDoNotShare() {
+    SingleFlight<String, String> flight = new SingleFlight<>();
+
+    Assert.assertEquals("a", flight.run("a", () -> flight.run("b", () -> "b").replace('b', 'a')));
+  }
+
+  @Test
+  public void failuresAreRethrownAndForgotten() {
+    SingleFlight<String, String> flight = new SingleFlight<>();
+
+    try {
+      flight.run("key", () -> {
+        throw new IllegalStateException("boom");
+      });
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      Assert.assertEquals("boom", e.getMessage());
+    }
+    Assert.assertEquals(0, flight.inFlightCount());
+    Assert.assertEquals("ok", flight.run("key", () -> "ok"));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
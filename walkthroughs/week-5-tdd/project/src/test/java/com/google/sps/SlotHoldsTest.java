@@ -0,0 +1,164 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class SlotHoldsTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0915AM = TimeRange.getTimeInMinutes(9, 15);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private static final long TTL_MILLIS = 1000;
+
+  private static final TimeRange SLOT =
+      TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES);
+
+  private final AtomicLong now = new AtomicLong();
+  private EventCalendar calendar;
+  private SlotHolds holds;
+
+  @Before
+  public void setUp() {
+    calendar = new EventCalendar();
+    holds = new SlotHolds(calendar, TTL_MILLIS, now::get);
+  }
+
+  @After
+  public void tearDown() {
+    calendar.close();
+  }
+
+  @Test
+  public void overlappingHoldIsRefused() {
+    Assert.assertNotNull(holds.hold(Arrays.asList(PERSON_A, PERSON_B), SLOT));
+
+    Assert.assertNull(holds.hold(Arrays.asList(PERSON_B),
+        TimeRange.fromStartDuration(TIME_0915AM, DURATION_30_MINUTES)));
+    Assert.assertNotNull(holds.hold(Arrays.asList(PERSON_C), SLOT));
+    Assert.assertNotNull(holds.hold(Arrays.asList(PERSON_B),
+        TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES)));
+  }
+
+  @Test
+  public void expiredHoldsAreRemovedWhenNewHoldsArePlaced() {
+    holds.hold(Arrays.asList(PERSON_A, PERSON_B), SLOT);
+    holds.hold(Arrays.asList(PERSON_B), TimeRange.fromStartDuration(TIME_1000AM,
+        DURATION_30_MINUTES));
+    Assert.assertEquals(2, holds.size());
+
+    // Nobody asks about Person A or Person B again, but their holds still go away.
+    now.addAndGet(TTL_MILLIS);
+    Assert.assertNotNull(holds.hold(Arrays.asList(PERSON_C), SLOT));
+
+    Assert.assertEquals(1, holds.size());
+  }
+
+  @Test
+  public void confirmedHoldBecomesEvent() {
+    SlotHold hold = holds.hold(Arrays.asList(PERSON_A), SLOT);
+
+    Event event = holds.confirm(hold.getId(), "Meeting");
+
+    Assert.assertEquals(new Event("Meeting", SLOT, Arrays.asList(PERSON_A)), event);
+    Assert.assertEquals(Arrays.asList(event), calendar.snapshot().getEventsFor(PERSON_A));
+    Assert.assertNull(holds.confirm(hold.getId(), "Meeting"));
+    Assert.assertNull(holds.hold(Arrays.asList(PERSON_A), SLOT));
+  }
+
+  @Test
+  public void expiredHoldCannotBeConfirmedAndFreesSlot() {
+    SlotHold hold = holds.hold(Arrays.asList(PERSON_A), SLOT);
+
+    now.addAndGet(TTL_MILLIS);
+
+    Assert.assertNotNull(holds.hold(Arrays.asList(PERSON_A), SLOT));
+    Assert.assertNull(holds.confirm(hold.getId(), "Meeting"));
+    Assert.assertTrue(calendar.snapshot().getEvents().isEmpty());
+  }
+
+  @Test
+  public void failedConfirmationFreesSlot() {
+    SlotHold hold = holds.hold(Arrays.asList(PERSON_A), SLOT);
+    calendar.close();
+
+    try {
+      holds.confirm(hold.getId(), "Meeting");
+      Assert.fail();
+    } catch (IllegalStateException expected) {
+      // The closed calendar refuses the event.
+    }
+
+    Assert.assertNotNull(holds.hold(Arrays.asList(PERSON_A), SLOT));
+  }
+
+  @Test
+  public void releasedHoldFreesSlot() {
+    SlotHold hold = holds.hold(Arrays.asList(PERSON_A), SLOT);
+
+    Assert.assertTrue(holds.release(hold.getId()));
+    Assert.assertFalse(holds.release(hold.getId()));
+    Assert.assertNotNull(holds.hold(Arrays.asList(PERSON_A), SLOT));
+  }
+
+  @Test
+  public void concurrentBookingsNeverDoubleBook() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Event>> bookings = new ArrayList<>();
+    for (int i = 0; i < 32; i++) {
+      // Every booking wants A plus one other person, at the same time.
+      List<String> attendees = Arrays.asList(PERSON_A, "Person " + i);
+      bookings.add(executor.submit(() -> {
+        start.await();
+        SlotHold hold = holds.hold(attendees, SLOT);
+        return hold == null ? null : holds.confirm(hold.getId(), "Meeting");
+      }));
+    }
+    start.countDown();
+
+    int confirmed = 0;
+    for (Future<Event> booking : bookings) {
+      if (booking.get() != null) {
+        confirmed++;
+      }
+    }
+    executor.shutdown();
+
+    Assert.assertEquals(1, confirmed);
+    Assert.assertEquals(1, calendar.snapshot().getEventsFor(PERSON_A).size());
+  }
+}